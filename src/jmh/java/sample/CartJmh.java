@@ -1,85 +1,138 @@
 package sample;
 
+import flab.commercemarket.domain.cart.repository.CartRepositoryImpl;
 import flab.commercemarket.domain.cart.vo.Cart;
 import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.user.vo.Role;
 import flab.commercemarket.domain.user.vo.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.stat.Statistics;
 import org.openjdk.jmh.annotations.*;
-import org.openjdk.jmh.infra.Blackhole;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 장바구니 합계 계산 비교 (H2 메모리 DB, 사용자 한 명의 장바구니 상품 수 = cartSize).
+ * perRowParallel: 기존 방식. 장바구니를 읽고 parallelStream 에서 상품마다 별도 세션으로 가격을 조회한다.
+ * perRow        : 같은 조회를 호출 스레드에서 순서대로 실행한다.
+ * aggregate     : CartRepositoryImpl 의 SUM(quantity * price) 조인 쿼리 한 번.
+ * 호출당 SQL 수는 Counters 의 보조 지표 statements 를 calls 로 나눠서 본다.
+ */
 @State(Scope.Benchmark)
 @BenchmarkMode(Mode.AverageTime)
-@OutputTimeUnit(TimeUnit.NANOSECONDS)
-@Fork(value = 1, warmups = 2)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, warmups = 1)
 public class CartJmh {
-    List<Cart> cartList = new ArrayList<>();
 
-    @Benchmark
-    public void forLoopBenchmark(Blackhole blackhole) {
-        blackhole.consume(forLoop(1));
+    @Param({"10", "100"})
+    int cartSize;
+
+    SessionFactory sessionFactory;
+    long userId;
+    Statistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = JpaBenchmarkSupport.sessionFactory("cart" + cartSize, Cart.class, Product.class, User.class);
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            User user = User.builder()
+                    .name("buyer")
+                    .email("buyer@example.com")
+                    .picture("picture")
+                    .role(Role.USER)
+                    .build();
+            session.persist(user);
+
+            for (int i = 1; i <= cartSize; i++) {
+                Product product = Product.builder()
+                        .name("product" + i)
+                        .price(i * 1000)
+                        .seller(user)
+                        .build();
+                session.persist(product);
+                session.persist(Cart.builder().user(user).product(product).quantity(i).build());
+            }
+            tx.commit();
+            userId = user.getId();
+        }
+        statistics = sessionFactory.getStatistics();
     }
 
-    @Benchmark
-    public void streamBenchmark(Blackhole blackhole) {
-        blackhole.consume(stream(1));
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
     }
 
     @Benchmark
-    public void parallelStreamBenchmark(Blackhole blackhole) {
-        blackhole.consume(parallelStream(1));
+    public long perRowParallel(Counters counters) {
+        long statements = statistics.getPrepareStatementCount();
+        List<Cart> carts = findAllByUserId();
+        long sum = carts.parallelStream()
+                .mapToLong(cart -> (long) cart.getQuantity() * getProductPrice(cart.getProductId()))
+                .sum();
+        counters.record(statistics, statements);
+        return sum;
     }
 
-    public int forLoop(long userId) {
-        List<Cart> carts = findAllByUserId(userId);
-
-        int sum = 0;
+    @Benchmark
+    public long perRow(Counters counters) {
+        long statements = statistics.getPrepareStatementCount();
+        List<Cart> carts = findAllByUserId();
 
+        long sum = 0;
         for (Cart cart : carts) {
-            int quantity = cart.getQuantity();
-            long productId = cart.getProductId();
-            int price = getProduct(productId).getPrice();
-            sum += quantity * price;
+            sum += (long) cart.getQuantity() * getProductPrice(cart.getProductId());
         }
+        counters.record(statistics, statements);
         return sum;
     }
 
-    public int stream(long userId) {
-        List<Cart> carts = findAllByUserId(userId);
-
-        return carts.stream()
-                .mapToInt(cart -> {
-                    int quantity = cart.getQuantity();
-                    long productId = cart.getProductId();
-                    int price = getProduct(productId).getPrice();
-                    return quantity * price;
-                }).sum();
+    @Benchmark
+    public long aggregate(Counters counters) {
+        long statements = statistics.getPrepareStatementCount();
+        long sum;
+        try (Session session = sessionFactory.openSession()) {
+            sum = new CartRepositoryImpl(session).sumTotalPriceByUserId(userId);
+        }
+        counters.record(statistics, statements);
+        return sum;
     }
 
-    public int parallelStream(long userId) {
-        List<Cart> carts = findAllByUserId(userId);
-
-        return carts.parallelStream()
-                .mapToInt(cart -> {
-                    int quantity = cart.getQuantity();
-                    long productId = cart.getProductId();
-                    int price = getProduct(productId).getPrice();
-                    return quantity * price;
-                }).sum();
+    private List<Cart> findAllByUserId() {
+        try (Session session = sessionFactory.openSession()) {
+            return new ArrayList<>(new CartRepositoryImpl(session).findAllByUserId(userId));
+        }
     }
 
-    public List<Cart> findAllByUserId(long userId) {
-        User user = User.builder().id(userId).build();
-        for (int i = 1; i <= 100; i++) {
-            Product product = Product.builder().id((long) i).price(i * 10000).build();
-            cartList.add(Cart.builder().user(user).product(product).quantity(i).build());
+    // ProductService.getProductById 처럼 호출마다 별도 세션(트랜잭션)에서 조회한다.
+    private int getProductPrice(long productId) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.get(Product.class, productId).getPrice();
         }
-        return cartList;
     }
 
-    public Product getProduct(long productId) {
-        return cartList.get((int) (productId - 1)).getProduct();
+    // 벤치마크 스레드가 하나뿐이고 parallelStream 도 호출 안에서 끝나므로, SessionFactory 통계의 호출 전후 차이가 그 호출의 SQL 수다.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long calls;
+        public long statements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            calls = 0;
+            statements = 0;
+        }
+
+        void record(Statistics statistics, long statementsBefore) {
+            calls++;
+            statements += statistics.getPrepareStatementCount() - statementsBefore;
+        }
     }
 }
@@ -0,0 +1,37 @@
+package sample;
+
+import flab.commercemarket.common.id.IdBlockSequence;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+
+// 스프링 컨텍스트 없이 H2 메모리 DB 위에 엔티티 매핑만 올려서 벤치마크에 사용한다.
+public final class JpaBenchmarkSupport {
+
+    private JpaBenchmarkSupport() {
+    }
+
+    public static SessionFactory sessionFactory(String databaseName, Class<?>... annotatedClasses) {
+        Configuration configuration = new Configuration()
+                .setProperty(AvailableSettings.URL, "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.PASS, "")
+                .setProperty(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.POOL_SIZE, "64")
+                .setProperty(AvailableSettings.GENERATE_STATISTICS, "true")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+                .setProperty(AvailableSettings.ORDER_INSERTS, "true")
+                .setProperty(AvailableSettings.ORDER_UPDATES, "true");
+        // 운영 환경(Spring Boot)과 같은 snake_case 컬럼명을 사용한다.
+        configuration.setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy());
+
+        // PooledIdGenerator 가 사용하는 id 블록 테이블
+        configuration.addAnnotatedClass(IdBlockSequence.class);
+        for (Class<?> annotatedClass : annotatedClasses) {
+            configuration.addAnnotatedClass(annotatedClass);
+        }
+        return configuration.buildSessionFactory();
+    }
+}
@@ -0,0 +1,117 @@
+package sample;
+
+import flab.commercemarket.common.counter.PendingDeltaCounter;
+import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.user.vo.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.PersistenceException;
+import java.sql.PreparedStatement;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 인기 상품 하나에 좋아요가 몰리는 상황의 처리량 비교.
+ * before: 요청마다 @Version 엔티티를 읽고 증가시켜 커밋 (충돌 시 재시도)
+ * after : PendingDeltaCounter 에 누적하고 100ms 마다 UPDATE like_count = like_count + ? 로 반영
+ * before 의 충돌로 인한 재시도 횟수는 보조 지표 optimisticLockFailures 로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+@Fork(value = 1, warmups = 1)
+public class LikeCountJmh {
+
+    private static final long PRODUCT_ID = 1L;
+
+    SessionFactory sessionFactory;
+    PendingDeltaCounter pendingLikes;
+    ScheduledExecutorService flusher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = JpaBenchmarkSupport.sessionFactory("like", Product.class, User.class);
+        pendingLikes = new PendingDeltaCounter();
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.persist(Product.builder().name("popular").price(1000).build());
+            tx.commit();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(this::flush, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flusher.shutdown();
+        flush();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void optimisticLockIncrement(Counters counters) {
+        while (true) {
+            try (Session session = sessionFactory.openSession()) {
+                Transaction tx = session.beginTransaction();
+                try {
+                    Product product = session.get(Product.class, PRODUCT_ID);
+                    product.setLikeCount(product.getLikeCount() + 1);
+                    tx.commit();
+                    return;
+                } catch (PersistenceException e) {
+                    if (tx.isActive()) {
+                        tx.rollback();
+                    }
+                    counters.optimisticLockFailures++;
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeBehindIncrement() {
+        pendingLikes.add(PRODUCT_ID, 1);
+    }
+
+    private void flush() {
+        Map<Long, Long> deltas = pendingLikes.snapshot();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("UPDATE product SET like_count = like_count + ? WHERE id = ?")) {
+                    for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                        ps.setLong(1, delta.getValue());
+                        ps.setLong(2, delta.getKey());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+            tx.commit();
+        }
+        pendingLikes.markFlushed(deltas);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long optimisticLockFailures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            optimisticLockFailures = 0;
+        }
+    }
+}
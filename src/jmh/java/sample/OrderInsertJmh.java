@@ -0,0 +1,167 @@
+package sample;
+
+import flab.commercemarket.domain.order.vo.Order;
+import flab.commercemarket.domain.order.vo.OrderProduct;
+import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.user.vo.User;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import org.hibernate.SessionEventListener;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 주문 상품 30 줄짜리 주문 저장 처리량 비교 (H2 메모리 DB, hibernate.jdbc.batch_size = 50).
+ * identity: 기존 방식. IDENTITY id 라서 INSERT 를 행마다 바로 실행하고 배치로 묶지 못한다.
+ *           같은 컬럼을 가진 벤치마크 전용 엔티티(identity_order, identity_order_product)에 저장한다.
+ * pooled  : PooledIdGenerator 로 id 를 50 개씩 미리 받아두고 INSERT 와 order_id UPDATE 를 배치로 묶는다.
+ * 주문당 SQL 수는 Counters 의 보조 지표 statements 를 orders 로 나눠서 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Fork(value = 1, warmups = 1)
+public class OrderInsertJmh {
+
+    private static final int LINE_COUNT = 30;
+
+    SessionFactory sessionFactory;
+    List<Product> products;
+    AtomicLong merchantUidSequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = JpaBenchmarkSupport.sessionFactory("order-insert",
+                Order.class, OrderProduct.class, Product.class, User.class,
+                IdentityOrder.class, IdentityOrderProduct.class);
+        merchantUidSequence = new AtomicLong();
+        products = new ArrayList<>(LINE_COUNT);
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 1; i <= LINE_COUNT; i++) {
+                Product product = Product.builder().name("product" + i).price(i * 1000).build();
+                session.persist(product);
+                products.add(product);
+            }
+            tx.commit();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void identity(Counters counters) {
+        List<IdentityOrderProduct> lines = new ArrayList<>(LINE_COUNT);
+        products.forEach(product -> lines.add(new IdentityOrderProduct(product, 1)));
+        save(new IdentityOrder(lines, LocalDateTime.now(), BigDecimal.valueOf(1000), nextMerchantUid()), counters);
+    }
+
+    @Benchmark
+    public void pooled(Counters counters) {
+        List<OrderProduct> lines = new ArrayList<>(LINE_COUNT);
+        products.forEach(product -> lines.add(OrderProduct.builder().product(product).quantity(1).build()));
+        save(Order.builder()
+                .orderProduct(lines)
+                .orderedAt(LocalDateTime.now())
+                .orderPrice(BigDecimal.valueOf(1000))
+                .merchantUid(nextMerchantUid())
+                .build(), counters);
+    }
+
+    // 벤치마크 스레드가 여러 개라 SessionFactory 통계 대신 세션마다 붙인 listener 로 그 세션의 SQL 만 센다.
+    private void save(Object order, Counters counters) {
+        try (Session session = sessionFactory.withOptions().eventListeners(counters.listener).openSession()) {
+            Transaction tx = session.beginTransaction();
+            session.persist(order);
+            tx.commit();
+        }
+        counters.orders++;
+    }
+
+    private String nextMerchantUid() {
+        return "merch_" + merchantUidSequence.incrementAndGet();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long orders;
+        public long statements;
+
+        private final SessionEventListener listener = new BaseSessionEventListener() {
+            @Override
+            public void jdbcPrepareStatementEnd() {
+                statements++;
+            }
+        };
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            orders = 0;
+            statements = 0;
+        }
+    }
+
+    @Entity(name = "identity_order")
+    public static class IdentityOrder {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @OneToMany(cascade = CascadeType.PERSIST)
+        @JoinColumn(name = "order_id")
+        private List<IdentityOrderProduct> orderProduct;
+
+        private LocalDateTime orderedAt;
+
+        private BigDecimal orderPrice;
+
+        @Column(unique = true)
+        private String merchantUid;
+
+        protected IdentityOrder() {
+        }
+
+        IdentityOrder(List<IdentityOrderProduct> orderProduct, LocalDateTime orderedAt, BigDecimal orderPrice, String merchantUid) {
+            this.orderProduct = orderProduct;
+            this.orderedAt = orderedAt;
+            this.orderPrice = orderPrice;
+            this.merchantUid = merchantUid;
+        }
+    }
+
+    @Entity(name = "identity_order_product")
+    public static class IdentityOrderProduct {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @ManyToOne(fetch = FetchType.LAZY)
+        @JoinColumn(name = "product_id")
+        private Product product;
+
+        private int quantity;
+
+        protected IdentityOrderProduct() {
+        }
+
+        IdentityOrderProduct(Product product, int quantity) {
+            this.product = product;
+            this.quantity = quantity;
+        }
+    }
+}
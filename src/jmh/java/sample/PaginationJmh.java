@@ -0,0 +1,87 @@
+package sample;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 상품 목록의 1 페이지와 10,000 페이지 조회 시간 비교 (H2 메모리 DB, 페이지당 20 개).
+ * offset: LIMIT ? OFFSET ? 로 앞의 행을 모두 읽고 버린다.
+ * keyset: WHERE id > ? ORDER BY id LIMIT ? 로 PK 인덱스에서 바로 시작 위치를 찾는다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, warmups = 1)
+public class PaginationJmh {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int ROW_COUNT = 250_000;
+
+    @Param({"1", "10000"})
+    int page;
+
+    Connection connection;
+    PreparedStatement offsetQuery;
+    PreparedStatement keysetQuery;
+    long afterId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:pagination;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS product");
+            statement.execute("CREATE TABLE product (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), price INT, like_count INT)");
+        }
+
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO product (name, price, like_count) VALUES (?, ?, 0)")) {
+            for (int i = 1; i <= ROW_COUNT; i++) {
+                insert.setString(1, "product-" + i);
+                insert.setInt(2, i % 100_000);
+                insert.addBatch();
+                if (i % 1_000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        offsetQuery = connection.prepareStatement("SELECT id, name, price, like_count FROM product ORDER BY id LIMIT ? OFFSET ?");
+        keysetQuery = connection.prepareStatement("SELECT id, name, price, like_count FROM product WHERE id > ? ORDER BY id LIMIT ?");
+        // 이전 페이지의 마지막 id. 커서 모드에서는 클라이언트가 nextCursor 로 들고 온다.
+        afterId = (long) (page - 1) * PAGE_SIZE;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void offset(Blackhole blackhole) throws SQLException {
+        offsetQuery.setInt(1, PAGE_SIZE);
+        offsetQuery.setLong(2, (long) (page - 1) * PAGE_SIZE);
+        consume(offsetQuery, blackhole);
+    }
+
+    @Benchmark
+    public void keyset(Blackhole blackhole) throws SQLException {
+        keysetQuery.setLong(1, afterId);
+        keysetQuery.setInt(2, PAGE_SIZE);
+        consume(keysetQuery, blackhole);
+    }
+
+    private void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getLong(1));
+                blackhole.consume(resultSet.getString(2));
+            }
+        }
+    }
+}
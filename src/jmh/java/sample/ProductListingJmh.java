@@ -0,0 +1,128 @@
+package sample;
+
+import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.domain.product.repository.ProductRepositoryImpl;
+import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.user.vo.Role;
+import flab.commercemarket.domain.user.vo.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 상품 목록 한 페이지(20 개, 판매자 20 명) 조회 비교.
+ * entity    : Product 엔티티를 읽고 toProductResponseDto 로 변환. 즉시 로딩인 seller 를 판매자마다 따로 조회한다.
+ * projection: ProductRepositoryImpl 의 DTO projection. seller_id 컬럼만 읽고 영속성 컨텍스트에 아무것도 올리지 않는다.
+ * 실행한 SQL 수와 로딩한 엔티티 수는 Counters 의 보조 지표(statements, entitiesLoaded)를 pages 로 나눠서 페이지당 값으로 본다.
+ * 할당량은 gc profiler 를 켜고 gc.alloc.rate.norm 으로 확인한다: ./gradlew jmh -Pjmh.profilers=gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, warmups = 1)
+public class ProductListingJmh {
+
+    private static final int SELLER_COUNT = 200;
+    private static final int PRODUCT_COUNT = 2_000;
+    private static final int PAGE = 10;
+    private static final int PAGE_SIZE = 20;
+
+    SessionFactory sessionFactory;
+    Statistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = JpaBenchmarkSupport.sessionFactory("listing", Product.class, User.class);
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            List<User> sellers = new ArrayList<>(SELLER_COUNT);
+            for (int i = 0; i < SELLER_COUNT; i++) {
+                User seller = User.builder()
+                        .name("seller" + i)
+                        .email("seller" + i + "@example.com")
+                        .picture("picture")
+                        .role(Role.USER)
+                        .build();
+                session.persist(seller);
+                sellers.add(seller);
+            }
+            for (int i = 0; i < PRODUCT_COUNT; i++) {
+                session.persist(Product.builder()
+                        .name("product" + i)
+                        .price(1000 + i)
+                        .imageUrl("https://image/" + i)
+                        .description("description" + i)
+                        .seller(sellers.get(i % SELLER_COUNT))
+                        .build());
+            }
+            tx.commit();
+        }
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void entity(Blackhole blackhole, Counters counters) {
+        long statements = statistics.getPrepareStatementCount();
+        long entitiesLoaded = statistics.getEntityLoadCount();
+        try (Session session = sessionFactory.openSession()) {
+            List<ProductResponseDto> products = session.createQuery("select p from Product p", Product.class)
+                    .setFirstResult(PAGE * PAGE_SIZE)
+                    .setMaxResults(PAGE_SIZE)
+                    .getResultList()
+                    .stream()
+                    .map(Product::toProductResponseDto)
+                    .collect(Collectors.toList());
+            blackhole.consume(products);
+        }
+        counters.record(statistics, statements, entitiesLoaded);
+    }
+
+    @Benchmark
+    public void projection(Blackhole blackhole, Counters counters) {
+        long statements = statistics.getPrepareStatementCount();
+        long entitiesLoaded = statistics.getEntityLoadCount();
+        try (Session session = sessionFactory.openSession()) {
+            List<ProductResponseDto> products = new ProductRepositoryImpl(session)
+                    .findProductResponses(PageRequest.of(PAGE, PAGE_SIZE));
+            blackhole.consume(products);
+        }
+        counters.record(statistics, statements, entitiesLoaded);
+    }
+
+    // 벤치마크 스레드가 하나뿐이라 SessionFactory 통계의 호출 전후 차이가 그 호출의 값이다.
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long pages;
+        public long statements;
+        public long entitiesLoaded;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pages = 0;
+            statements = 0;
+            entitiesLoaded = 0;
+        }
+
+        void record(Statistics statistics, long statementsBefore, long entitiesLoadedBefore) {
+            pages++;
+            statements += statistics.getPrepareStatementCount() - statementsBefore;
+            entitiesLoaded += statistics.getEntityLoadCount() - entitiesLoadedBefore;
+        }
+    }
+}
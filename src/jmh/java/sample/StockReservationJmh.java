@@ -0,0 +1,126 @@
+package sample;
+
+import flab.commercemarket.common.exception.OutOfStockException;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.stock.DbStockReservationEngine;
+import flab.commercemarket.domain.stock.InMemoryStockReservationEngine;
+import flab.commercemarket.domain.stock.StockDeltaWriter;
+import flab.commercemarket.domain.user.vo.User;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 타임 세일 상품 하나와 일반 상품 하나를 함께 사는 주문이 64 스레드에서 몰릴 때 재고 예약 처리량 비교 (H2 메모리 DB).
+ * database: DbStockReservationEngine. 주문마다 트랜잭션 안에서 조건부 UPDATE 로 차감하고, 세일 상품 행 잠금에서 줄을 선다.
+ * memory  : InMemoryStockReservationEngine. AtomicLongArray 에서 CAS 로 차감하고 100ms 마다 변화량을 DB 에 반영한다.
+ * 재고가 바닥나지 않도록 충분히 채워두고, 재고 부족으로 거절된 주문 수는 보조 지표 rejected 로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(64)
+@Fork(value = 1, warmups = 1)
+public class StockReservationJmh {
+
+    private static final String URL = "jdbc:h2:mem:stock;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=60000";
+    private static final int PRODUCT_COUNT = 100;
+    private static final int STOCK = Integer.MAX_VALUE / 2;
+
+    SessionFactory sessionFactory;
+    JdbcConnectionPool dataSource;
+    TransactionTemplate transactionTemplate;
+    DbStockReservationEngine dbEngine;
+    InMemoryStockReservationEngine memoryEngine;
+    StockDeltaWriter stockDeltaWriter;
+    ScheduledExecutorService flusher;
+    long saleProductId;
+    long firstProductId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sessionFactory = JpaBenchmarkSupport.sessionFactory("stock", Product.class, User.class);
+
+        try (Session session = sessionFactory.openSession()) {
+            Transaction tx = session.beginTransaction();
+            for (int i = 0; i <= PRODUCT_COUNT; i++) {
+                Product product = Product.builder().name("product" + i).price(1000).stock(STOCK).build();
+                session.persist(product);
+                if (i == 0) {
+                    saleProductId = product.getId();
+                } else if (i == 1) {
+                    firstProductId = product.getId();
+                }
+            }
+            tx.commit();
+        }
+
+        dataSource = JdbcConnectionPool.create(URL, "sa", "");
+        dataSource.setMaxConnections(64);
+        ProductJdbcRepository productJdbcRepository = new ProductJdbcRepository(new JdbcTemplate(dataSource));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        dbEngine = new DbStockReservationEngine(productJdbcRepository);
+        stockDeltaWriter = new StockDeltaWriter(productJdbcRepository);
+        memoryEngine = new InMemoryStockReservationEngine(productJdbcRepository, stockDeltaWriter, PRODUCT_COUNT + 1);
+
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(stockDeltaWriter::flush, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flusher.shutdown();
+        stockDeltaWriter.flush();
+        dataSource.dispose();
+        sessionFactory.close();
+    }
+
+    // 스프링 프록시가 없으므로 OrderService.registerOrder 의 트랜잭션을 직접 연다.
+    @Benchmark
+    public void database(Counters counters) {
+        Map<Long, Integer> quantities = order();
+        try {
+            transactionTemplate.executeWithoutResult(status -> dbEngine.reserve(quantities));
+        } catch (OutOfStockException e) {
+            counters.rejected++;
+        }
+    }
+
+    @Benchmark
+    public void memory(Counters counters) {
+        try {
+            memoryEngine.reserve(order());
+        } catch (OutOfStockException e) {
+            counters.rejected++;
+        }
+    }
+
+    private Map<Long, Integer> order() {
+        long productId = firstProductId + ThreadLocalRandom.current().nextInt(PRODUCT_COUNT);
+        return Map.of(saleProductId, 1, productId, 1);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rejected = 0;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package flab.commercemarket.common.bloom;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * 사용자별로 담은 상품(장바구니, 위시리스트)을 기록하는 Redis 비트맵 Bloom filter.
+ * "없음" 이면 확실히 없으므로 DB 존재 확인을 건너뛰고, "있을 수도 있음" 일 때만 DB 를 확인한다.
+ * 0 번 비트는 필터를 만들었는지 나타내고, 표시가 없으면 DB 의 상품 목록을 기존 비트에 OR 로 합친다.
+ * 비트는 켜기만 하므로 DB 를 읽은 뒤에 추가된 상품도 빠지지 않는다(거짓 음성 없음).
+ * 삭제는 반영하지 않기 때문에 TTL 이 지나 다시 만들 때까지 거짓 양성이 조금씩 늘어난다.
+ * 필터는 최적화일 뿐이고 중복은 (user_id, product_id) 유니크 키가 최종적으로 막는다.
+ */
+@Slf4j
+@Component
+public class UserItemBloomFilter {
+
+    private static final String KEY_PREFIX = "bloom:";
+    private static final long BUILT_MARKER_OFFSET = 0L;
+    private static final BitFieldSubCommands.BitFieldType BIT = BitFieldSubCommands.BitFieldType.unsigned(1);
+
+    private static final String BUILDING_SUFFIX = ":building";
+
+    // KEYS = [filter, temp], ARGV = [ttl, offset1, offset2, ...]
+    // 임시 키에 만든 뒤 OR 로 합친다. 그사이 ADD 로 켜진 비트를 지우지 않는다.
+    private static final RedisScript<Long> BUILD = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[2]) " +
+                    "for i = 2, #ARGV do redis.call('SETBIT', KEYS[2], ARGV[i], 1) end " +
+                    "redis.call('BITOP', 'OR', KEYS[1], KEYS[1], KEYS[2]) " +
+                    "redis.call('DEL', KEYS[2]) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    // ARGV = [ttl, offset1, offset2, ...]
+    // 필터가 없으면 생성 표시 없이 만든다. 다음 확인 때 DB 목록을 합쳐 완성한다.
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do redis.call('SETBIT', KEYS[1], ARGV[i], 1) end " +
+                    "if redis.call('TTL', KEYS[1]) == -1 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+                    "return 1", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final long bits;
+    private final int hashCount;
+    private final long ttlSeconds;
+
+    public UserItemBloomFilter(RedisTemplate<String, Object> redisTemplate,
+                               @Value("${bloom.user-item.bits:8192}") long bits,
+                               @Value("${bloom.user-item.hash-count:4}") int hashCount,
+                               @Value("${bloom.user-item.ttl-seconds:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.bits = bits;
+        this.hashCount = hashCount;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public boolean mightContain(String name, long userId, long itemId, Supplier<Collection<Long>> loader) {
+        return !filterMightContain(name, userId, Collections.singleton(itemId), loader).isEmpty();
+    }
+
+    // itemIds 중에서 담겨 있을 수도 있는 것만 남긴다.
+    public Set<Long> filterMightContain(String name, long userId, Collection<Long> itemIds, Supplier<Collection<Long>> loader) {
+        if (itemIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        String key = key(name, userId);
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(itemIds));
+        try {
+            BitFieldSubCommands commands = BitFieldSubCommands.create().get(BIT).valueAt(BUILT_MARKER_OFFSET);
+            for (Long id : ids) {
+                for (long offset : offsets(id)) {
+                    commands = commands.get(BIT).valueAt(offset);
+                }
+            }
+
+            List<Long> values = redisTemplate.opsForValue().bitField(key, commands);
+            if (values == null || values.get(0) == 0L) {
+                Collection<Long> existingIds = loader.get();
+                build(key, existingIds);
+                return checkLocally(ids, existingIds);
+            }
+
+            Set<Long> candidates = new LinkedHashSet<>();
+            int position = 1;
+            for (Long id : ids) {
+                boolean allSet = true;
+                for (int i = 0; i < hashCount; i++) {
+                    allSet &= values.get(position++) == 1L;
+                }
+                if (allSet) {
+                    candidates.add(id);
+                }
+            }
+            return candidates;
+        } catch (DataAccessException e) {
+            // 필터를 쓸 수 없으면 모두 있을 수도 있다고 보고 DB 로 넘긴다.
+            log.warn("Fail to read bloom filter. key = {}", key, e);
+            return new LinkedHashSet<>(ids);
+        }
+    }
+
+    public void add(String name, long userId, Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+
+        String key = key(name, userId);
+        List<Object> args = new ArrayList<>(itemIds.size() * hashCount + 1);
+        args.add(String.valueOf(ttlSeconds));
+        for (Long itemId : itemIds) {
+            for (long offset : offsets(itemId)) {
+                args.add(String.valueOf(offset));
+            }
+        }
+
+        try {
+            redisTemplate.execute(ADD, Collections.singletonList(key), args.toArray());
+        } catch (DataAccessException e) {
+            // 필터에 빠진 상품은 유니크 키가 막으므로 지워서 다시 만들게 한다.
+            log.warn("Fail to update bloom filter. key = {}", key, e);
+            evict(key);
+        }
+    }
+
+    public void add(String name, long userId, long itemId) {
+        add(name, userId, Collections.singletonList(itemId));
+    }
+
+    private void build(String key, Collection<Long> itemIds) {
+        List<Object> args = new ArrayList<>(itemIds.size() * hashCount + 2);
+        args.add(String.valueOf(ttlSeconds));
+        args.add(String.valueOf(BUILT_MARKER_OFFSET));
+        for (Long itemId : itemIds) {
+            for (long offset : offsets(itemId)) {
+                args.add(String.valueOf(offset));
+            }
+        }
+        redisTemplate.execute(BUILD, Arrays.asList(key, key + BUILDING_SUFFIX), args.toArray());
+        log.info("Build bloom filter. key = {}, size = {}", key, itemIds.size());
+    }
+
+    // 방금 읽은 DB 목록으로 판단한다. 필터를 만든 직후라 거짓 양성 없이 정확하다.
+    private static Set<Long> checkLocally(List<Long> ids, Collection<Long> itemIds) {
+        Set<Long> existing = new HashSet<>(itemIds);
+        Set<Long> candidates = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (existing.contains(id)) {
+                candidates.add(id);
+            }
+        }
+        return candidates;
+    }
+
+    // double hashing. 0 번 비트는 생성 표시용이라 1 ~ bits-1 범위를 사용한다.
+    private long[] offsets(long itemId) {
+        long hash1 = mix(itemId);
+        long hash2 = mix(hash1) | 1L;
+        long[] offsets = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            offsets[i] = 1 + Math.floorMod(hash1 + i * hash2, bits - 1);
+        }
+        return offsets;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void evict(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("Fail to evict bloom filter. key = {}", key, e);
+        }
+    }
+
+    private String key(String name, long userId) {
+        return KEY_PREFIX + name + ":" + userId;
+    }
+}
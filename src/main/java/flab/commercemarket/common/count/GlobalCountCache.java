@@ -0,0 +1,30 @@
+package flab.commercemarket.common.count;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 전체 결제 수, 전체 상품 수처럼 모든 사용자가 같은 값을 보는 개수는 정확할 필요가 없으므로
+ * 노드마다 TTL 동안 재사용한다. 최대 TTL 만큼 오래된 값이 내려갈 수 있다.
+ * 같은 키를 동시에 조회하면 COUNT 쿼리는 한 번만 실행된다.
+ */
+@Component
+public class GlobalCountCache {
+
+    private final Cache<String, Long> counts;
+
+    public GlobalCountCache(@Value("${count.global.ttl-seconds:10}") long ttlSeconds) {
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public long get(String name, LongSupplier loader) {
+        return counts.get(name, key -> loader.getAsLong());
+    }
+}
@@ -0,0 +1,161 @@
+package flab.commercemarket.common.count;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.function.LongSupplier;
+
+/**
+ * 사용자별 개수(장바구니, 위시리스트, 기간별 주문)를 Redis 에 들고 있는 카운터.
+ * 처음 조회할 때 DB 의 COUNT 로 채우고, 이후에는 서비스의 등록/삭제가 커밋된 뒤 증감만 반영한다.
+ * 키가 없을 때는 증감하지 않으므로(다음 조회 때 DB 에서 다시 채운다) 만료된 키가 틀린 값으로 되살아나지 않는다.
+ * 적재와 증감이 겹쳐서 생기는 오차는 TTL 이 지나면 사라진다. 기간별 개수는 처음 채울 때만 TTL 을 정하고, 기간 수에 상한을 둔다.
+ */
+@Slf4j
+@Component
+public class UserCountCache {
+
+    private static final String KEY_PREFIX = "count:";
+
+    // 키가 있을 때만 INCRBY
+    private static final RedisScript<Long> INCREMENT_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+                    "return redis.call('INCRBY', KEYS[1], ARGV[1]) " +
+                    "end " +
+                    "return nil", Long.class);
+
+    // 기간별 개수는 hash 의 field(시작:끝 epoch milli) 로 들고 있고, at 이 포함되는 기간만 증감한다.
+    private static final RedisScript<Long> INCREMENT_RANGES = new DefaultRedisScript<>(
+            "local at = tonumber(ARGV[1]) " +
+                    "local updated = 0 " +
+                    "for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do " +
+                    "local separator = string.find(field, ':') " +
+                    "local startAt = tonumber(string.sub(field, 1, separator - 1)) " +
+                    "local endAt = tonumber(string.sub(field, separator + 1)) " +
+                    "if startAt <= at and at <= endAt then " +
+                    "redis.call('HINCRBY', KEYS[1], field, ARGV[2]) " +
+                    "updated = updated + 1 " +
+                    "end " +
+                    "end " +
+                    "return updated", Long.class);
+
+    // ARGV = [field, count, maxFields, ttl]. 기간 수가 상한에 닿았으면 저장하지 않는다.
+    // TTL 은 hash 를 처음 만들 때만 정하므로 조회가 이어져도 hash 가 계속 살아남지 않는다.
+    private static final RedisScript<Long> PUT_RANGE = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then return 0 end " +
+                    "if redis.call('HLEN', KEYS[1]) >= tonumber(ARGV[3]) then return 0 end " +
+                    "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "if redis.call('TTL', KEYS[1]) == -1 then redis.call('EXPIRE', KEYS[1], ARGV[4]) end " +
+                    "return 1", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Duration ttl;
+    private final int maxRanges;
+
+    public UserCountCache(RedisTemplate<String, Object> redisTemplate,
+                          @Value("${count.user.ttl-seconds:3600}") long ttlSeconds,
+                          @Value("${count.user.max-ranges:32}") int maxRanges) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxRanges = maxRanges;
+    }
+
+    public long get(String name, String owner, LongSupplier loader) {
+        String key = key(name, owner);
+        try {
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Long.parseLong((String) cached);
+            }
+
+            long count = loader.getAsLong();
+            redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count), ttl);
+            return count;
+        } catch (DataAccessException e) {
+            log.warn("Fail to read count cache. key = {}", key, e);
+            return loader.getAsLong();
+        }
+    }
+
+    public long getInRange(String name, String owner, LocalDateTime startDateTime, LocalDateTime endDateTime, LongSupplier loader) {
+        String key = key(name, owner);
+        String field = epochMilli(startDateTime) + ":" + epochMilli(endDateTime);
+        try {
+            Object cached = redisTemplate.opsForHash().get(key, field);
+            if (cached != null) {
+                return Long.parseLong((String) cached);
+            }
+
+            long count = loader.getAsLong();
+            redisTemplate.execute(PUT_RANGE, Collections.singletonList(key),
+                    field, String.valueOf(count), String.valueOf(maxRanges), String.valueOf(ttl.getSeconds()));
+            return count;
+        } catch (DataAccessException e) {
+            log.warn("Fail to read count cache. key = {}, field = {}", key, field, e);
+            return loader.getAsLong();
+        }
+    }
+
+    public void increment(String name, String owner, long delta) {
+        String key = key(name, owner);
+        afterCommit(() -> redisTemplate.execute(INCREMENT_IF_EXISTS, Collections.singletonList(key), String.valueOf(delta)), key);
+    }
+
+    public void incrementInRange(String name, String owner, LocalDateTime at, long delta) {
+        String key = key(name, owner);
+        afterCommit(() -> redisTemplate.execute(INCREMENT_RANGES, Collections.singletonList(key),
+                String.valueOf(epochMilli(at)), String.valueOf(delta)), key);
+    }
+
+    // 롤백된 변경이 반영되지 않도록 트랜잭션 안에서는 커밋 이후에 증감한다.
+    private void afterCommit(Runnable update, String key) {
+        Runnable safeUpdate = () -> {
+            try {
+                update.run();
+            } catch (DataAccessException e) {
+                log.warn("Fail to update count cache. key = {}", key, e);
+                evict(key);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            safeUpdate.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                safeUpdate.run();
+            }
+        });
+    }
+
+    // 증감에 실패한 값은 믿을 수 없으므로 지워서 다음 조회 때 다시 채운다.
+    private void evict(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("Fail to evict count cache. key = {}", key, e);
+        }
+    }
+
+    private String key(String name, String owner) {
+        return KEY_PREFIX + name + ":" + owner;
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
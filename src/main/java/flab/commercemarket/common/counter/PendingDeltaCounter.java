@@ -0,0 +1,65 @@
+package flab.commercemarket.common.counter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DB 에 아직 반영되지 않은 key 별 변화량을 모아두는 카운터.
+ * 누적은 LongAdder 로 스트라이핑해서 경합 없이 더하고, 반영이 끝난 양은 flushed 에 따로 기록한다.
+ * 누적값을 0 으로 되돌리지 않기 때문에 snapshot 과 markFlushed 사이에 들어온 변화량도 유실되지 않는다.
+ */
+public class PendingDeltaCounter {
+
+    // 제거 시점에 다른 스레드가 같은 엔트리에 더하고 있을 수 있어 엔트리는 지우지 않는다.
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    public void add(long key, long delta) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key, k -> new Entry());
+        }
+        entry.accumulated.add(delta);
+    }
+
+    public long pending(long key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.pending() : 0L;
+    }
+
+    public Map<Long, Long> snapshot() {
+        if (entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Long> deltas = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            long pending = entry.pending();
+            if (pending != 0) {
+                deltas.put(key, pending);
+            }
+        });
+        return deltas;
+    }
+
+    public void markFlushed(Map<Long, Long> flushedDeltas) {
+        flushedDeltas.forEach((key, delta) -> {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                entry.flushed.addAndGet(delta);
+            }
+        });
+    }
+
+    private static class Entry {
+        private final LongAdder accumulated = new LongAdder();
+        private final AtomicLong flushed = new AtomicLong();
+
+        private long pending() {
+            return accumulated.sum() - flushed.get();
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package flab.commercemarket.common.exception;
+
+import lombok.Getter;
+
+@Getter
+public class OutOfStockException extends RuntimeException {
+
+    private final long productId;
+
+    public OutOfStockException(String message, long productId) {
+        super(message);
+        this.productId = productId;
+    }
+}
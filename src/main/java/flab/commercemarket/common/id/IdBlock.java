@@ -0,0 +1,23 @@
+package flab.commercemarket.common.id;
+
+import java.util.function.LongSupplier;
+
+// 노드가 가져간 id 블록. 블록을 다 쓰면 allocator 로 다음 블록의 시작값을 받아온다.
+public class IdBlock {
+
+    private final int blockSize;
+    private long next;
+    private long limit;
+
+    public IdBlock(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public synchronized long next(LongSupplier allocator) {
+        if (next == limit) {
+            next = allocator.getAsLong();
+            limit = next + blockSize;
+        }
+        return next++;
+    }
+}
@@ -0,0 +1,24 @@
+package flab.commercemarket.common.id;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// 테이블마다 다음에 나눠줄 id 블록의 시작값. IdBlocks 가 JDBC 로만 읽고 쓰며, 엔티티는 DDL 생성에만 사용한다.
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = IdBlocks.TABLE)
+public class IdBlockSequence {
+    @Id
+    @Column(name = "segment")
+    private String segment;
+
+    @Column(name = "next_val", nullable = false)
+    private long nextVal;
+}
@@ -0,0 +1,101 @@
+package flab.commercemarket.common.id;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+
+/**
+ * 테이블 기반 id 블록 할당 (pooled-lo). id_block_sequence 에 테이블마다 다음 블록의 시작값을 두고,
+ * 행을 잠근 채 blockSize 만큼 올려서 [시작값, 시작값 + blockSize) 를 한 노드가 가져간다.
+ * 행이 없으면 기존 데이터와 겹치지 않도록 MAX(id) + 1 부터 시작한다.
+ * 주문 트랜잭션과 별개로 바로 커밋되는 연결에서 호출해야 다른 노드가 행 잠금을 오래 기다리지 않는다.
+ */
+public final class IdBlocks {
+
+    public static final String TABLE = "id_block_sequence";
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+
+    private IdBlocks() {
+    }
+
+    public static long allocate(Connection connection, String table, String idColumn, int blockSize) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tryAllocate(connection, table, idColumn, blockSize);
+            } catch (SQLException e) {
+                if (attempt >= MAX_ATTEMPTS || !isRetryable(e) || connection.getAutoCommit()) {
+                    throw e;
+                }
+                // 없는 행에 대한 FOR UPDATE 는 gap lock 을 잡으므로 두 노드가 동시에 처음 INSERT 하면 교착 상태가 될 수 있다.
+                // 이 트랜잭션은 블록 할당만 하므로 롤백하고 처음부터 다시 읽는다.
+                connection.rollback();
+            }
+        }
+    }
+
+    private static long tryAllocate(Connection connection, String table, String idColumn, int blockSize) throws SQLException {
+        while (true) {
+            Long start = selectForUpdate(connection, table);
+            if (start == null) {
+                if (!insertInitial(connection, table, idColumn)) {
+                    continue;
+                }
+                start = selectForUpdate(connection, table);
+            }
+
+            try (PreparedStatement update = connection.prepareStatement(
+                    "UPDATE " + TABLE + " SET next_val = ? WHERE segment = ?")) {
+                update.setLong(1, start + blockSize);
+                update.setString(2, table);
+                update.executeUpdate();
+            }
+            return start;
+        }
+    }
+
+    // 교착 상태(SQLState 40xxx)나 잠금 대기 시간 초과
+    private static boolean isRetryable(SQLException e) {
+        String sqlState = e.getSQLState();
+        return e instanceof SQLTransactionRollbackException
+                || e instanceof SQLTimeoutException
+                || (sqlState != null && sqlState.startsWith("40"))
+                || e.getErrorCode() == MYSQL_LOCK_WAIT_TIMEOUT;
+    }
+
+    private static Long selectForUpdate(Connection connection, String table) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_val FROM " + TABLE + " WHERE segment = ? FOR UPDATE")) {
+            select.setString(1, table);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    // 다른 노드가 먼저 넣었으면 false
+    private static boolean insertInitial(Connection connection, String table, String idColumn) throws SQLException {
+        long start;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + table)) {
+            rs.next();
+            start = rs.getLong(1);
+        }
+
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (segment, next_val) VALUES (?, ?)")) {
+            insert.setString(1, table);
+            insert.setLong(2, start);
+            insert.executeUpdate();
+            return true;
+        } catch (SQLIntegrityConstraintViolationException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package flab.commercemarket.common.id;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// JdbcTemplate 으로 직접 INSERT 하는 테이블의 id. PooledIdGenerator 와 같은 블록 테이블을 사용하므로 엔티티가 받은 id 와 겹치지 않는다.
+@Component
+public class JdbcIdAllocator {
+
+    private final ConcurrentHashMap<String, IdBlock> idBlocks = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public long next(String table) {
+        return idBlocks.computeIfAbsent(table, key -> new IdBlock(PooledIdGenerator.BLOCK_SIZE))
+                .next(() -> transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<Long>) connection ->
+                        IdBlocks.allocate(connection, table, "id", PooledIdGenerator.BLOCK_SIZE))));
+    }
+}
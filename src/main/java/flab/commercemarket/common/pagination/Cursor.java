@@ -0,0 +1,76 @@
+package flab.commercemarket.common.pagination;
+
+import flab.commercemarket.common.exception.InvalidCursorException;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * keyset 페이지네이션의 위치. 마지막으로 내려준 행의 id (주문은 ordered_at 과 id) 를 담는다.
+ * 클라이언트에는 내부 구조를 노출하지 않도록 base64 로 감싼 토큰(after, nextCursor)으로만 주고받는다.
+ */
+@Getter
+public final class Cursor {
+
+    private static final Cursor FIRST = new Cursor(null, 0L);
+    private static final String SEPARATOR = "|";
+
+    // 정렬 키가 id 뿐이면 null
+    private final LocalDateTime dateTime;
+    private final long id;
+
+    private Cursor(LocalDateTime dateTime, long id) {
+        this.dateTime = dateTime;
+        this.id = id;
+    }
+
+    public static Cursor of(long id) {
+        return new Cursor(null, id);
+    }
+
+    public static Cursor of(LocalDateTime dateTime, long id) {
+        return new Cursor(dateTime, id);
+    }
+
+    // 빈 토큰은 첫 페이지를 의미한다.
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                return of(Long.parseLong(decoded));
+            }
+            return of(LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Long.parseLong(decoded.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("잘못된 커서 값. after = " + token, e);
+        }
+    }
+
+    public boolean isFirst() {
+        return dateTime == null && id == 0L;
+    }
+
+    public String encode() {
+        String raw = dateTime == null ? String.valueOf(id) : dateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> String nextToken(Slice<T> slice, Function<T, Cursor> cursorOf) {
+        if (!slice.hasNext() || slice.getContent().isEmpty()) {
+            return null;
+        }
+        List<T> content = slice.getContent();
+        return cursorOf.apply(content.get(content.size() - 1)).encode();
+    }
+}
@@ -0,0 +1,20 @@
+package flab.commercemarket.common.pagination;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+// 전체 개수 없이 size + 1 개를 조회한 결과로 다음 페이지 존재 여부를 판단한다.
+public final class Slices {
+
+    private Slices() {
+    }
+
+    public static <T> Slice<T> of(List<T> rows, int page, int size) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        return new SliceImpl<>(content, PageRequest.of(Math.max(page - 1, 0), size), hasNext);
+    }
+}
@@ -1,5 +1,6 @@
 package flab.commercemarket.common.responsedto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -14,6 +15,18 @@ import java.util.List;
 public class PageResponseDto<T> {
     private int page;
     private int size;
-    private long totalElements;
+
+    // count=false 로 조회하면 전체 개수를 세지 않으므로 내려가지 않는다.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
+
     private List<T> content;
+
+    // 전체 개수 대신 size + 1 개를 읽어서 판단한 다음 페이지 존재 여부. count=false 또는 커서 모드에서만 내려간다.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasNext;
+
+    // 커서 모드(after 파라미터)로 조회했을 때만 내려가며, 마지막 페이지면 비어 있다.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
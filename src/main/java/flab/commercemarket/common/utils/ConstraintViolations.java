@@ -0,0 +1,23 @@
+package flab.commercemarket.common.utils;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+// 무결성 위반 예외가 특정 제약조건(유니크 키 등) 때문인지 확인한다. FK 위반 같은 다른 원인과 구분할 때 사용한다.
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean isViolated(DataIntegrityViolationException e, String constraintName) {
+        Throwable cause = e.getCause();
+        if (!(cause instanceof ConstraintViolationException)) {
+            return false;
+        }
+
+        // MySQL 8 은 "테이블명.제약조건명" 형태로 알려준다.
+        String violatedName = ((ConstraintViolationException) cause).getConstraintName();
+        return violatedName != null
+                && (violatedName.equalsIgnoreCase(constraintName) || violatedName.toLowerCase().endsWith("." + constraintName.toLowerCase()));
+    }
+}
@@ -1,16 +1,23 @@
 package flab.commercemarket.controller.cart;
 
 import flab.commercemarket.common.helper.AuthorizationHelper;
+import flab.commercemarket.common.pagination.Cursor;
 import flab.commercemarket.common.responsedto.PageResponseDto;
+import flab.commercemarket.controller.cart.dto.CartBatchRequestDto;
 import flab.commercemarket.controller.cart.dto.CartDto;
+import flab.commercemarket.controller.cart.dto.CartOperationResultDto;
 import flab.commercemarket.controller.cart.dto.CartResponseDto;
 import flab.commercemarket.domain.cart.CartService;
 import flab.commercemarket.domain.cart.vo.Cart;
+import flab.commercemarket.domain.product.vo.Product;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -19,6 +26,8 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasAnyRole('ROLE_USER','ROLE_ADMIN')")
 public class CartController {
 
+    private static final String EXPAND_PRODUCT = "product";
+
     private final CartService cartService;
     private final AuthorizationHelper authorizationHelper;
 
@@ -28,20 +37,41 @@ public class CartController {
         return registerCart.toCartResponseDto();
     }
 
+    @PostMapping("/batch")
+    public List<CartOperationResultDto> postCartBatch(@RequestBody @Valid CartBatchRequestDto cartBatchRequestDto) {
+        return cartService.applyCartOperations(authorizationHelper.getPrincipalEmail(), cartBatchRequestDto.getOperations());
+    }
+
     @PatchMapping("/{cartId}")
     public CartResponseDto patchCart(@PathVariable("cartId") long cartId, @RequestBody CartDto cartDto) {
         Cart updatedCart = cartService.updateCart(cartDto, cartId, authorizationHelper.getPrincipalEmail());
         return updatedCart.toCartResponseDto();
     }
 
+    @PatchMapping("/products/{productId}")
+    public CartResponseDto patchCartByProduct(@PathVariable("productId") long productId, @RequestBody CartDto cartDto) {
+        Cart updatedCart = cartService.updateCartByProduct(authorizationHelper.getPrincipalEmail(), productId, cartDto.getQuantity());
+        return updatedCart.toCartResponseDto();
+    }
+
     @GetMapping
-    public PageResponseDto<CartResponseDto> getCarts(@RequestParam int page, @RequestParam int size) {
+    public PageResponseDto<CartResponseDto> getCarts(@RequestParam(defaultValue = "1") int page,
+                                                     @RequestParam int size,
+                                                     @RequestParam(required = false) String after,
+                                                     @RequestParam(defaultValue = "true") boolean count,
+                                                     @RequestParam(required = false) String expand) {
         String principalEmail = authorizationHelper.getPrincipalEmail();
+        boolean expandProduct = EXPAND_PRODUCT.equals(expand);
+        if (after != null) {
+            return getCartsAfter(principalEmail, after, size, count, expandProduct);
+        }
+        if (!count) {
+            return getCartSlice(principalEmail, page, size, expandProduct);
+        }
+
         List<Cart> carts = cartService.findCarts(principalEmail, page, size);
 
-        List<CartResponseDto> cartResponseDto = carts.stream()
-                .map(Cart::toCartResponseDto)
-                .collect(Collectors.toList());
+        List<CartResponseDto> cartResponseDto = toCartResponses(carts, expandProduct);
 
         long totalElements = cartService.countCartByUserEmail(principalEmail);
 
@@ -53,14 +83,66 @@ public class CartController {
                 .build();
     }
 
+    private PageResponseDto<CartResponseDto> getCartSlice(String principalEmail, int page, int size, boolean expandProduct) {
+        Slice<Cart> cartSlice = cartService.findCartSlice(principalEmail, page, size);
+
+        List<CartResponseDto> cartResponseDto = toCartResponses(cartSlice.getContent(), expandProduct);
+
+        return PageResponseDto.<CartResponseDto>builder()
+                .page(page)
+                .size(size)
+                .content(cartResponseDto)
+                .hasNext(cartSlice.hasNext())
+                .build();
+    }
+
+    private PageResponseDto<CartResponseDto> getCartsAfter(String principalEmail, String after, int size, boolean count,
+                                                           boolean expandProduct) {
+        Slice<Cart> cartSlice = cartService.findCartsAfter(principalEmail, after, size);
+
+        List<CartResponseDto> cartResponseDto = toCartResponses(cartSlice.getContent(), expandProduct);
+
+        return PageResponseDto.<CartResponseDto>builder()
+                .size(size)
+                .totalElements(count ? cartService.countCartByUserEmail(principalEmail) : null)
+                .content(cartResponseDto)
+                .hasNext(cartSlice.hasNext())
+                .nextCursor(Cursor.nextToken(cartSlice, cartService::cursorOf))
+                .build();
+    }
+
+    // expand=product 이면 상품 정보를 함께 내려줘서 목록 화면이 상품마다 따로 조회하지 않아도 된다.
+    private List<CartResponseDto> toCartResponses(List<Cart> carts, boolean expandProduct) {
+        List<CartResponseDto> cartResponseDto = carts.stream()
+                .map(Cart::toCartResponseDto)
+                .collect(Collectors.toList());
+
+        if (expandProduct) {
+            Map<Long, Product> products = cartService.findCartProducts(carts);
+            cartResponseDto.forEach(cart -> {
+                Product product = products.get(cart.getProductId());
+                if (product != null) {
+                    cart.setProduct(product.toProductSummaryDto());
+                }
+            });
+        }
+        return cartResponseDto;
+    }
+
     @DeleteMapping("/{cartId}")
     public void deleteCart(@PathVariable long cartId) {
         String principalEmail = authorizationHelper.getPrincipalEmail();
         cartService.deleteCart(principalEmail, cartId);
     }
 
+    @DeleteMapping("/products/{productId}")
+    public void deleteCartByProduct(@PathVariable long productId) {
+        String principalEmail = authorizationHelper.getPrincipalEmail();
+        cartService.deleteCartByProduct(principalEmail, productId);
+    }
+
     @GetMapping("/price")
-    public int getPrice() {
+    public long getPrice() {
         String principalEmail = authorizationHelper.getPrincipalEmail();
         return cartService.calculateTotalPrice(principalEmail);
     }
@@ -0,0 +1,24 @@
+package flab.commercemarket.controller.cart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequestDto {
+
+    // 한 번에 IN 쿼리와 JDBC batch 로 처리하므로 개수를 제한한다.
+    public static final int MAX_OPERATIONS = 100;
+
+    @Valid
+    @NotNull(message = "Operations cannot be null")
+    @Size(max = MAX_OPERATIONS, message = "Operations cannot exceed " + MAX_OPERATIONS)
+    private List<@NotNull(message = "Operation cannot be null") CartOperationDto> operations;
+}
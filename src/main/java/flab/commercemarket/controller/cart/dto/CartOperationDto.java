@@ -0,0 +1,30 @@
+package flab.commercemarket.controller.cart.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import flab.commercemarket.domain.cart.vo.CartOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotNull;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationDto {
+
+    @NotNull(message = "Type cannot be null")
+    private CartOperationType type;
+
+    private long productId;
+
+    // REMOVE 에서는 사용하지 않는다.
+    private int quantity;
+
+    @JsonIgnore
+    @AssertTrue(message = "Quantity must be positive")
+    public boolean isQuantityValid() {
+        return type == CartOperationType.REMOVE || quantity > 0;
+    }
+}
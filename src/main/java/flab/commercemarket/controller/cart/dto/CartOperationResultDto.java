@@ -0,0 +1,20 @@
+package flab.commercemarket.controller.cart.dto;
+
+import flab.commercemarket.domain.cart.vo.CartOperationStatus;
+import flab.commercemarket.domain.cart.vo.CartOperationType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationResultDto {
+    private CartOperationType type;
+    private long productId;
+    private CartOperationStatus status;
+    // 적용 후 수량. 삭제되었거나 담기지 않은 상품이면 0
+    private int quantity;
+}
@@ -1,9 +1,12 @@
 package flab.commercemarket.controller.cart.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import flab.commercemarket.controller.product.dto.ProductSummaryDto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 @Getter
 @Builder
@@ -14,4 +17,9 @@ public class CartResponseDto {
     private long userId;
     private long productId;
     private int quantity;
+
+    // expand=product 일 때만 채운다.
+    @Setter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ProductSummaryDto product;
 }
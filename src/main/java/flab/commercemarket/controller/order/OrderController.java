@@ -1,13 +1,18 @@
 package flab.commercemarket.controller.order;
 
 import flab.commercemarket.common.helper.AuthorizationHelper;
+import flab.commercemarket.common.pagination.Cursor;
 import flab.commercemarket.common.responsedto.PageResponseDto;
 import flab.commercemarket.controller.order.dto.OrderGetResponseDto;
+import flab.commercemarket.controller.order.dto.OrderIntakeResponseDto;
 import flab.commercemarket.controller.order.dto.OrderRequestDto;
 import flab.commercemarket.controller.order.dto.OrderResponseDto;
 import flab.commercemarket.domain.order.OrderService;
+import flab.commercemarket.domain.order.intake.OrderIntake;
 import flab.commercemarket.domain.order.vo.Order;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -29,6 +34,24 @@ public class OrderController {
         return order.toOrderResponseDto();
     }
 
+    // order.intake.mode=async 이면 저장을 기다리지 않고 접수 상태를 돌려준다. 아니면 바로 저장하고 COMPLETED 를 돌려준다.
+    @PostMapping("/intake")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public OrderIntakeResponseDto postOrderIntake(@RequestBody OrderRequestDto orderRequestDto) {
+        String email = authorizationHelper.getPrincipalEmail();
+        if (!orderService.isAsyncIntakeEnabled()) {
+            Order order = orderService.registerOrder(email, orderRequestDto);
+            return OrderIntake.completed(order).toOrderIntakeResponseDto();
+        }
+
+        return orderService.acceptOrder(email, orderRequestDto).toOrderIntakeResponseDto();
+    }
+
+    @GetMapping("/intake/{merchantUid}")
+    public OrderIntakeResponseDto getOrderIntake(@PathVariable String merchantUid) {
+        return orderService.getOrderIntake(merchantUid).toOrderIntakeResponseDto();
+    }
+
     @GetMapping("/{orderId}")
     public OrderGetResponseDto getOrder(@PathVariable long orderId) {
         Order order = orderService.getOrder(orderId);
@@ -37,9 +60,19 @@ public class OrderController {
     }
 
     @GetMapping
-    public PageResponseDto<OrderGetResponseDto> getOrderDateRange(@RequestParam String startDate, @RequestParam String endDate, @RequestParam int page, @RequestParam int size) {
+    public PageResponseDto<OrderGetResponseDto> getOrderDateRange(@RequestParam String startDate, @RequestParam String endDate,
+                                                                  @RequestParam(defaultValue = "1") int page, @RequestParam int size,
+                                                                  @RequestParam(required = false) String after,
+                                                                  @RequestParam(defaultValue = "true") boolean count) {
 
         String email = authorizationHelper.getPrincipalEmail();
+        if (after != null) {
+            return getOrderDateRangeAfter(email, startDate, endDate, after, size, count);
+        }
+        if (!count) {
+            return getOrderDateRangeSlice(email, startDate, endDate, page, size);
+        }
+
         List<OrderGetResponseDto> contents = orderService.getOrderByDate(email, startDate, endDate, page, size)
                 .stream()
                 .map(Order::toOrderGetResponseDto)
@@ -55,6 +88,37 @@ public class OrderController {
                 .build();
     }
 
+    private PageResponseDto<OrderGetResponseDto> getOrderDateRangeSlice(String email, String startDate, String endDate, int page, int size) {
+        Slice<Order> orderSlice = orderService.getOrderSliceByDate(email, startDate, endDate, page, size);
+
+        List<OrderGetResponseDto> contents = orderSlice.stream()
+                .map(Order::toOrderGetResponseDto)
+                .collect(Collectors.toList());
+
+        return PageResponseDto.<OrderGetResponseDto>builder()
+                .size(size)
+                .page(page)
+                .content(contents)
+                .hasNext(orderSlice.hasNext())
+                .build();
+    }
+
+    private PageResponseDto<OrderGetResponseDto> getOrderDateRangeAfter(String email, String startDate, String endDate, String after, int size, boolean count) {
+        Slice<Order> orderSlice = orderService.getOrderByDateAfter(email, startDate, endDate, after, size);
+
+        List<OrderGetResponseDto> contents = orderSlice.stream()
+                .map(Order::toOrderGetResponseDto)
+                .collect(Collectors.toList());
+
+        return PageResponseDto.<OrderGetResponseDto>builder()
+                .size(size)
+                .content(contents)
+                .totalElements(count ? orderService.countOrderByDate(email, startDate, endDate) : null)
+                .hasNext(orderSlice.hasNext())
+                .nextCursor(Cursor.nextToken(orderSlice, order -> Cursor.of(order.getOrderedAt(), order.getId())))
+                .build();
+    }
+
     @DeleteMapping("/{orderId}")
     public void deleteOrder(@PathVariable long orderId) {
         String email = authorizationHelper.getPrincipalEmail();
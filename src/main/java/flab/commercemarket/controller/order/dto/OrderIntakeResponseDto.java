@@ -0,0 +1,17 @@
+package flab.commercemarket.controller.order.dto;
+
+import flab.commercemarket.domain.order.intake.OrderIntakeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeResponseDto {
+    private String merchantUid;
+    private OrderIntakeStatus status;
+    private Long orderId;
+}
@@ -1,5 +1,6 @@
 package flab.commercemarket.controller.payment;
 
+import flab.commercemarket.common.pagination.Cursor;
 import flab.commercemarket.common.responsedto.PageResponseDto;
 import flab.commercemarket.controller.payment.dto.PaymentPostVerificationDto;
 import flab.commercemarket.controller.payment.dto.PaymentResponseDto;
@@ -8,6 +9,7 @@ import flab.commercemarket.domain.payment.vo.Payment;
 import flab.commercemarket.controller.payment.dto.PaymentPreVerificationDto;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -33,7 +35,17 @@ public class PaymentController {
     }
 
     @GetMapping
-    public PageResponseDto<PaymentResponseDto> getPayments(@RequestParam int page, @RequestParam int size) {
+    public PageResponseDto<PaymentResponseDto> getPayments(@RequestParam(defaultValue = "1") int page,
+                                                           @RequestParam int size,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(defaultValue = "true") boolean count) {
+        if (after != null) {
+            return getPaymentsAfter(after, size, count);
+        }
+        if (!count) {
+            return getPaymentSlice(page, size);
+        }
+
         List<Payment> payments = paymentService.getPayments(page, size);
 
         List<PaymentResponseDto> paymentResponseDto = payments.stream()
@@ -50,4 +62,34 @@ public class PaymentController {
                 .build();
     }
 
+    private PageResponseDto<PaymentResponseDto> getPaymentSlice(int page, int size) {
+        Slice<Payment> paymentSlice = paymentService.getPaymentSlice(page, size);
+
+        List<PaymentResponseDto> paymentResponseDto = paymentSlice.stream()
+                .map(Payment::toPaymentResponseDto)
+                .collect(Collectors.toList());
+
+        return PageResponseDto.<PaymentResponseDto>builder()
+                .page(page)
+                .size(size)
+                .content(paymentResponseDto)
+                .hasNext(paymentSlice.hasNext())
+                .build();
+    }
+
+    private PageResponseDto<PaymentResponseDto> getPaymentsAfter(String after, int size, boolean count) {
+        Slice<Payment> paymentSlice = paymentService.getPaymentsAfter(after, size);
+
+        List<PaymentResponseDto> paymentResponseDto = paymentSlice.stream()
+                .map(Payment::toPaymentResponseDto)
+                .collect(Collectors.toList());
+
+        return PageResponseDto.<PaymentResponseDto>builder()
+                .size(size)
+                .totalElements(count ? paymentService.countPayments() : null)
+                .content(paymentResponseDto)
+                .hasNext(paymentSlice.hasNext())
+                .nextCursor(Cursor.nextToken(paymentSlice, payment -> Cursor.of(payment.getId())))
+                .build();
+    }
 }
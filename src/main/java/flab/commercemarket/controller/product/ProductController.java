@@ -1,18 +1,26 @@
 package flab.commercemarket.controller.product;
 
 import flab.commercemarket.common.helper.AuthorizationHelper;
+import flab.commercemarket.common.pagination.Cursor;
 import flab.commercemarket.common.responsedto.PageResponseDto;
+import flab.commercemarket.controller.product.dto.LikeResponseDto;
 import flab.commercemarket.controller.product.dto.ProductDto;
 import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.controller.product.dto.ProductSuggestionDto;
 import flab.commercemarket.domain.product.ProductService;
+import flab.commercemarket.domain.product.search.ProductSuggestIndex;
+import flab.commercemarket.domain.product.search.SearchMode;
 import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.wishlist.WishListService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -20,7 +28,10 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ProductController {
 
+    private static final String EXPAND_WISH_COUNT = "wishCount";
+
     private final ProductService productService;
+    private final WishListService wishListService;
     private final AuthorizationHelper authorizationHelper;
 
     @PostMapping
@@ -45,42 +56,113 @@ public class ProductController {
     @GetMapping("/{productId}")
     public ProductResponseDto getProduct(@PathVariable("productId") long productId) {
         Product product = productService.getProductById(productId);
-        return product.toProductResponseDto();
+        ProductResponseDto productResponseDto = product.toProductResponseDto();
+        productResponseDto.setWishCount(wishListService.countWishesByProductId(productId));
+        return productResponseDto;
     }
 
     @GetMapping
-    public PageResponseDto<ProductResponseDto> getProducts(@RequestParam int page, @RequestParam int size) {
-        Page<Product> productPage = productService.findProducts(page, size);
-
-        List<ProductResponseDto> productResponseDto = productPage.stream()
-                .map(Product::toProductResponseDto)
-                .collect(Collectors.toList());
+    public PageResponseDto<ProductResponseDto> getProducts(@RequestParam(defaultValue = "1") int page,
+                                                           @RequestParam int size,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(defaultValue = "true") boolean count,
+                                                           @RequestParam(required = false) String expand) {
+        boolean expandWishCount = EXPAND_WISH_COUNT.equals(expand);
+        if (after != null) {
+            return getProductsAfter(after, size, count, expandWishCount);
+        }
+        if (!count) {
+            return toSliceResponse(productService.findProductSlice(page, size), page, size, expandWishCount);
+        }
+
+        Page<ProductResponseDto> productPage = productService.findProducts(page, size);
 
         return PageResponseDto.<ProductResponseDto>builder()
                 .page(page)
                 .size(size)
                 .totalElements(productPage.getTotalElements())
-                .content(productResponseDto)
+                .content(withWishCounts(productPage.getContent(), expandWishCount))
                 .build();
     }
 
-    @GetMapping("/search")
-    public PageResponseDto<ProductResponseDto> searchProduct(@RequestParam String keyword, @RequestParam int page, @RequestParam int size) {
-        List<Product> products = productService.searchProduct(keyword, page, size);
-        long totalElements = productService.countSearchProductByKeyword(keyword);
+    private PageResponseDto<ProductResponseDto> getProductsAfter(String after, int size, boolean count, boolean expandWishCount) {
+        Slice<ProductResponseDto> productSlice = productService.findProductsAfter(after, size);
 
-        List<ProductResponseDto> productResponseDto = products.stream()
-                .map(Product::toProductResponseDto)
-                .collect(Collectors.toList());
+        return PageResponseDto.<ProductResponseDto>builder()
+                .size(size)
+                .totalElements(count ? productService.countProducts() : null)
+                .content(withWishCounts(productSlice.getContent(), expandWishCount))
+                .hasNext(productSlice.hasNext())
+                .nextCursor(Cursor.nextToken(productSlice, product -> Cursor.of(product.getId())))
+                .build();
+    }
+
+    @GetMapping("/search")
+    public PageResponseDto<ProductResponseDto> searchProduct(@RequestParam String keyword,
+                                                             @RequestParam int page,
+                                                             @RequestParam int size,
+                                                             @RequestParam(defaultValue = "PREFIX") SearchMode mode,
+                                                             @RequestParam(defaultValue = "true") boolean count,
+                                                             @RequestParam(required = false) String expand) {
+        boolean expandWishCount = EXPAND_WISH_COUNT.equals(expand);
+        if (!count) {
+            Slice<ProductResponseDto> productSlice = mode == SearchMode.INFIX
+                    ? productService.searchProductSliceByInfix(keyword, page, size)
+                    : productService.searchProductSlice(keyword, page, size);
+            return toSliceResponse(productSlice, page, size, expandWishCount);
+        }
+
+        List<ProductResponseDto> products;
+        long totalElements;
+
+        if (mode == SearchMode.INFIX) {
+            Page<ProductResponseDto> productPage = productService.searchProductByInfix(keyword, page, size);
+            products = productPage.getContent();
+            totalElements = productPage.getTotalElements();
+        } else {
+            products = productService.searchProduct(keyword, page, size);
+            totalElements = productService.countSearchProductByKeyword(keyword);
+        }
 
         return PageResponseDto.<ProductResponseDto>builder()
                 .page(page)
                 .size(size)
                 .totalElements(totalElements)
-                .content(productResponseDto)
+                .content(withWishCounts(products, expandWishCount))
+                .build();
+    }
+
+    private PageResponseDto<ProductResponseDto> toSliceResponse(Slice<ProductResponseDto> productSlice, int page, int size,
+                                                                boolean expandWishCount) {
+        return PageResponseDto.<ProductResponseDto>builder()
+                .page(page)
+                .size(size)
+                .content(withWishCounts(productSlice.getContent(), expandWishCount))
+                .hasNext(productSlice.hasNext())
                 .build();
     }
 
+    // 찜 수는 요청한 목록(expand=wishCount)에만 붙인다. 적재되지 않은 상품은 DB 집계가 필요해서 목록 조회가 무거워진다.
+    // 상품마다 조회하지 않고 한 번에 가져온다.
+    private List<ProductResponseDto> withWishCounts(List<ProductResponseDto> products, boolean expandWishCount) {
+        if (!expandWishCount) {
+            return products;
+        }
+
+        Map<Long, Long> wishCounts = wishListService.countWishesByProductIds(
+                products.stream().map(ProductResponseDto::getId).collect(Collectors.toList()));
+        products.forEach(product -> product.setWishCount(wishCounts.getOrDefault(product.getId(), 0L)));
+        return products;
+    }
+
+    @GetMapping("/suggest")
+    public List<ProductSuggestionDto> suggestProducts(@RequestParam String prefix,
+                                                      @RequestParam(defaultValue = "10") int size) {
+        return productService.suggestProducts(prefix, size).stream()
+                .map(ProductSuggestIndex.Suggestion::toProductSuggestionDto)
+                .collect(Collectors.toList());
+    }
+
     @DeleteMapping("/{productId}")
     @PreAuthorize("hasAnyRole('ROLE_USER','ROLE_ADMIN')")
     public void deleteProduct(@PathVariable("productId") long productId) {
@@ -89,7 +171,16 @@ public class ProductController {
     }
 
     @PostMapping("/{productId}/likes")
+    @PreAuthorize("hasAnyRole('ROLE_USER','ROLE_ADMIN')")
     public void postLike(@PathVariable("productId") long productId) {
-        productService.updateLikeCount(productId);
+        String email = authorizationHelper.getPrincipalEmail();
+        productService.updateLikeCount(productId, email);
+    }
+
+    @GetMapping("/{productId}/likes")
+    @PreAuthorize("hasAnyRole('ROLE_USER','ROLE_ADMIN')")
+    public LikeResponseDto getLike(@PathVariable("productId") long productId) {
+        String email = authorizationHelper.getPrincipalEmail();
+        return productService.getLike(productId, email);
     }
 }
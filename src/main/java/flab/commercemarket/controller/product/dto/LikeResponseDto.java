@@ -0,0 +1,16 @@
+package flab.commercemarket.controller.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeResponseDto {
+    private long productId;
+    private boolean liked;
+    private long likeCount;
+}
@@ -25,4 +25,8 @@ public class ProductDto {
 
     @NotNull(message = "Description cannot be null")
     private String description;
+
+    // 등록할 때의 초기 재고. 비어 있으면 재고를 관리하지 않는다. 수정할 때는 사용하지 않는다.
+    @Min(value = 0, message = "Stock cannot be negative")
+    private Integer stock;
 }
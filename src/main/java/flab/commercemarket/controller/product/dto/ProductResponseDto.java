@@ -1,5 +1,6 @@
 package flab.commercemarket.controller.product.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Builder
@@ -15,4 +16,7 @@ public class ProductResponseDto {
     private String description;
     private int likeCount;
     private Long sellerId;
+    // 상세 조회와 expand=wishCount 목록에서만 채운다.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long wishCount;
 }
@@ -0,0 +1,16 @@
+package flab.commercemarket.controller.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDto {
+    private long productId;
+    private String name;
+    private int likeCount;
+}
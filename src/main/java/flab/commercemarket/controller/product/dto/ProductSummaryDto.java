@@ -0,0 +1,16 @@
+package flab.commercemarket.controller.product.dto;
+
+import lombok.*;
+
+// 장바구니, 위시리스트 목록에 함께 내려주는 상품 정보
+@Builder
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDto {
+    private Long id;
+    private String name;
+    private int price;
+    private String imageUrl;
+    private int likeCount;
+}
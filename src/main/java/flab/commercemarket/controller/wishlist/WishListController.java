@@ -1,15 +1,19 @@
 package flab.commercemarket.controller.wishlist;
 
 import flab.commercemarket.common.helper.AuthorizationHelper;
+import flab.commercemarket.common.pagination.Cursor;
 import flab.commercemarket.common.responsedto.PageResponseDto;
 import flab.commercemarket.controller.wishlist.dto.WishListResponseDto;
+import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.wishlist.WishListService;
 import flab.commercemarket.domain.wishlist.vo.WishList;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -18,6 +22,8 @@ import java.util.stream.Collectors;
 @PreAuthorize("hasAnyRole('ROLE_USER','ROLE_ADMIN')")
 public class WishListController {
 
+    private static final String EXPAND_PRODUCT = "product";
+
     private final WishListService wishListService;
     private final AuthorizationHelper authorizationHelper;
 
@@ -30,14 +36,24 @@ public class WishListController {
     }
 
     @GetMapping
-    public PageResponseDto<WishListResponseDto> getWishLists(@RequestParam int page, @RequestParam int size) {
+    public PageResponseDto<WishListResponseDto> getWishLists(@RequestParam(defaultValue = "1") int page,
+                                                             @RequestParam int size,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(defaultValue = "true") boolean count,
+                                                             @RequestParam(required = false) String expand) {
         String principalEmail = authorizationHelper.getPrincipalEmail();
+        boolean expandProduct = EXPAND_PRODUCT.equals(expand);
+        if (after != null) {
+            return getWishListsAfter(principalEmail, after, size, count, expandProduct);
+        }
+        if (!count) {
+            return getWishListSlice(principalEmail, page, size, expandProduct);
+        }
+
         List<WishList> wishLists = wishListService.findWishLists(principalEmail, page, size);
         long totalElements = wishListService.countWishListByUserId(principalEmail);
 
-        List<WishListResponseDto> wishListResponseList = wishLists.stream()
-                .map(WishList::toWishlistResponseDto)
-                .collect(Collectors.toList());
+        List<WishListResponseDto> wishListResponseList = toWishListResponses(wishLists, expandProduct);
 
         return PageResponseDto.<WishListResponseDto>builder()
                 .size(size)
@@ -47,6 +63,52 @@ public class WishListController {
                 .build();
     }
 
+    private PageResponseDto<WishListResponseDto> getWishListSlice(String principalEmail, int page, int size, boolean expandProduct) {
+        Slice<WishList> wishListSlice = wishListService.findWishListSlice(principalEmail, page, size);
+
+        List<WishListResponseDto> wishListResponseList = toWishListResponses(wishListSlice.getContent(), expandProduct);
+
+        return PageResponseDto.<WishListResponseDto>builder()
+                .size(size)
+                .page(page)
+                .content(wishListResponseList)
+                .hasNext(wishListSlice.hasNext())
+                .build();
+    }
+
+    private PageResponseDto<WishListResponseDto> getWishListsAfter(String principalEmail, String after, int size, boolean count,
+                                                                   boolean expandProduct) {
+        Slice<WishList> wishListSlice = wishListService.findWishListsAfter(principalEmail, after, size);
+
+        List<WishListResponseDto> wishListResponseList = toWishListResponses(wishListSlice.getContent(), expandProduct);
+
+        return PageResponseDto.<WishListResponseDto>builder()
+                .size(size)
+                .totalElements(count ? wishListService.countWishListByUserId(principalEmail) : null)
+                .content(wishListResponseList)
+                .hasNext(wishListSlice.hasNext())
+                .nextCursor(Cursor.nextToken(wishListSlice, wishList -> Cursor.of(wishList.getId())))
+                .build();
+    }
+
+    // expand=product 이면 상품 정보를 함께 내려줘서 목록 화면이 상품마다 따로 조회하지 않아도 된다.
+    private List<WishListResponseDto> toWishListResponses(List<WishList> wishLists, boolean expandProduct) {
+        List<WishListResponseDto> wishListResponseList = wishLists.stream()
+                .map(WishList::toWishlistResponseDto)
+                .collect(Collectors.toList());
+
+        if (expandProduct) {
+            Map<Long, Product> products = wishListService.findWishListProducts(wishLists);
+            wishListResponseList.forEach(wishList -> {
+                Product product = products.get(wishList.getProductId());
+                if (product != null) {
+                    wishList.setProduct(product.toProductSummaryDto());
+                }
+            });
+        }
+        return wishListResponseList;
+    }
+
     @DeleteMapping("/{wishListId}")
     public void deleteWishList(@PathVariable long wishListId) {
         String principalEmail = authorizationHelper.getPrincipalEmail();
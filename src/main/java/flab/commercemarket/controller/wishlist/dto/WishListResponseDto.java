@@ -1,7 +1,10 @@
 package flab.commercemarket.controller.wishlist.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import flab.commercemarket.controller.product.dto.ProductSummaryDto;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.Setter;
 
 @Builder
 @Getter
@@ -10,4 +13,9 @@ public class WishListResponseDto {
     private long id;
     private long productId;
     private long userId;
+
+    // expand=product 일 때만 채운다.
+    @Setter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ProductSummaryDto product;
 }
@@ -1,32 +1,62 @@
 package flab.commercemarket.domain.cart;
 
+import flab.commercemarket.common.bloom.UserItemBloomFilter;
+import flab.commercemarket.common.count.UserCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
 import flab.commercemarket.common.exception.DuplicateDataException;
 import flab.commercemarket.common.exception.ForbiddenException;
+import flab.commercemarket.common.pagination.Cursor;
+import flab.commercemarket.common.pagination.OffsetPageRequest;
+import flab.commercemarket.common.pagination.Slices;
+import flab.commercemarket.common.utils.ConstraintViolations;
 import flab.commercemarket.controller.cart.dto.CartDto;
+import flab.commercemarket.controller.cart.dto.CartOperationDto;
+import flab.commercemarket.controller.cart.dto.CartOperationResultDto;
+import flab.commercemarket.domain.cart.cache.CartTotalCache;
+import flab.commercemarket.domain.cart.repository.CartJdbcRepository;
 import flab.commercemarket.domain.cart.repository.CartRepository;
+import flab.commercemarket.domain.cart.store.RedisCartStore;
 import flab.commercemarket.domain.cart.vo.Cart;
+import flab.commercemarket.domain.cart.vo.CartKey;
+import flab.commercemarket.domain.cart.vo.CartOperationStatus;
+import flab.commercemarket.domain.cart.vo.CartOperationType;
 import flab.commercemarket.domain.product.ProductService;
 import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartService {
+
+    private static final String COUNT_NAME = "cart";
+
     private final CartRepository cartRepository;
+    private final CartJdbcRepository cartJdbcRepository;
     private final ProductService productService;
     private final UserService userService;
+    private final UserCountCache userCountCache;
+    private final CartTotalCache cartTotalCache;
+    private final RedisCartStore redisCartStore;
+    private final UserItemBloomFilter userItemBloomFilter;
 
     @Transactional
     public Cart registerCart(CartDto data, String email) {
@@ -35,6 +65,14 @@ public class CartService {
         User foundUser = userService.getUserByEmail(email);
         Product foundProduct = productService.getProductById(data.getProductId());
 
+        if (redisCartStore.isEnabled()) {
+            if (!redisCartStore.add(foundUser.getId(), data.getProductId(), data.getQuantity())) {
+                log.info("userId = {}, productId = {}", foundUser.getId(), data.getProductId());
+                throw new DuplicateDataException("이미 장바구니에 담긴 상품");
+            }
+            return toCart(foundUser, data.getProductId(), data.getQuantity());
+        }
+
         checkDuplicateCartItem(foundUser.getId(), data.getProductId());
 
         Cart cart = Cart.builder()
@@ -43,7 +81,10 @@ public class CartService {
                 .quantity(data.getQuantity())
                 .build();
 
-        Cart createdCart = cartRepository.save(cart);
+        Cart createdCart = insertCart(cart);
+        userItemBloomFilter.add(COUNT_NAME, foundUser.getId(), data.getProductId());
+        userCountCache.increment(COUNT_NAME, email, 1);
+        cartTotalCache.evict(email);
 
         log.info("Create cart. {}", createdCart);
         return createdCart;
@@ -57,24 +98,151 @@ public class CartService {
         User foundUser = userService.getUserByEmail(email);
         checkUserAuthorization(foundCart.getUserId(), foundUser.getId());
 
+        if (redisCartStore.isEnabled()) {
+            return updateStoredCart(foundUser, foundCart.getProductId(), data.getQuantity());
+        }
+
         foundCart.setQuantity(data.getQuantity());
+        cartTotalCache.evict(email);
 
         log.info("Update cart. {}", foundCart);
         return foundCart;
     }
 
+    @Transactional
+    public Cart updateCartByProduct(String email, long productId, int quantity) {
+        log.info("Start updateCartByProduct. productId = {}", productId);
+        User foundUser = userService.getUserByEmail(email);
+
+        if (redisCartStore.isEnabled()) {
+            return updateStoredCart(foundUser, productId, quantity);
+        }
+
+        Cart foundCart = getCart(foundUser.getId(), productId);
+        foundCart.setQuantity(quantity);
+        cartTotalCache.evict(email);
+
+        log.info("Update cart. {}", foundCart);
+        return foundCart;
+    }
+
+    // 여러 항목의 추가/수정/삭제를 한 트랜잭션에서 처리한다. 항목별 결과를 요청 순서대로 반환한다.
+    @Transactional
+    public List<CartOperationResultDto> applyCartOperations(String email, List<CartOperationDto> operations) {
+        log.info("Start applyCartOperations. size = {}", operations.size());
+        User foundUser = userService.getUserByEmail(email);
+        long userId = foundUser.getId();
+
+        Set<Long> productIds = operations.stream()
+                .map(CartOperationDto::getProductId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<Long> addedProductIds = operations.stream()
+                .filter(operation -> operation.getType() == CartOperationType.ADD)
+                .map(CartOperationDto::getProductId)
+                .collect(Collectors.toSet());
+        Set<Long> existingProductIds = productService.findProductsByIds(addedProductIds).keySet();
+
+        Map<Long, Integer> originalQuantities;
+        if (redisCartStore.isEnabled()) {
+            originalQuantities = new HashMap<>(redisCartStore.findAll(userId));
+            originalQuantities.keySet().retainAll(productIds);
+        } else {
+            // 추가만 하는 상품은 필터가 확실히 없다고 하면 조회하지 않는다.
+            // 수정, 삭제는 결과가 기존 행에 달려 있으므로 항상 DB 를 확인한다.
+            Set<Long> checkedProductIds = operations.stream()
+                    .filter(operation -> operation.getType() != CartOperationType.ADD)
+                    .map(CartOperationDto::getProductId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            Set<Long> addOnlyProductIds = new LinkedHashSet<>(addedProductIds);
+            addOnlyProductIds.removeAll(checkedProductIds);
+
+            Set<Long> candidateIds = new LinkedHashSet<>(checkedProductIds);
+            candidateIds.addAll(userItemBloomFilter.filterMightContain(COUNT_NAME, userId, addOnlyProductIds,
+                    () -> cartJdbcRepository.findQuantitiesByUserId(userId).keySet()));
+            originalQuantities = cartJdbcRepository.findQuantitiesByUserIdAndProductIds(userId, candidateIds);
+        }
+
+        Map<Long, Integer> quantities = new HashMap<>(originalQuantities);
+        List<CartOperationResultDto> results = new ArrayList<>(operations.size());
+        for (CartOperationDto operation : operations) {
+            CartOperationStatus status = applyCartOperation(operation, quantities, existingProductIds);
+            results.add(CartOperationResultDto.builder()
+                    .type(operation.getType())
+                    .productId(operation.getProductId())
+                    .status(status)
+                    .quantity(quantities.getOrDefault(operation.getProductId(), 0))
+                    .build());
+        }
+
+        if (redisCartStore.isEnabled()) {
+            saveStoredCarts(userId, originalQuantities, quantities);
+        } else {
+            saveCarts(email, userId, originalQuantities, quantities);
+        }
+
+        log.info("Apply cart operations. userId = {}, size = {}", userId, operations.size());
+        return results;
+    }
+
     @Transactional(readOnly = true)
     public List<Cart> findCarts(String email, int page, int size) {
         log.info("Start getCarts. email = {}", email);
         User foundUser = userService.getUserByEmail(email);
 
+        if (redisCartStore.isEnabled()) {
+            return findStoredCarts(foundUser, (long) (page - 1) * size, size);
+        }
+
         Pageable pageable = PageRequest.of(page - 1, size);
         return cartRepository.findCartByUserId(foundUser.getId(), pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<Cart> findCartSlice(String email, int page, int size) {
+        log.info("Start getCarts without count. email = {}", email);
+        User foundUser = userService.getUserByEmail(email);
+
+        OffsetPageRequest pageRequest = OffsetPageRequest.forSlice(page, size);
+        List<Cart> carts = redisCartStore.isEnabled()
+                ? findStoredCarts(foundUser, pageRequest.getOffset(), pageRequest.getPageSize())
+                : cartRepository.findCartByUserId(foundUser.getId(), pageRequest);
+        return Slices.of(carts, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Cart> findCartsAfter(String email, String after, int size) {
+        log.info("Start getCarts after cursor. email = {}", email);
+        Cursor cursor = Cursor.decode(after);
+        User foundUser = userService.getUserByEmail(email);
+
+        // Redis 장바구니에는 cartId 가 없으므로 productId 를 커서로 사용한다.
+        List<Cart> carts = redisCartStore.isEnabled()
+                ? redisCartStore.findAll(foundUser.getId()).tailMap(cursor.getId() + 1).entrySet().stream()
+                .limit(size + 1)
+                .map(item -> toCart(foundUser, item.getKey(), item.getValue()))
+                .collect(Collectors.toList())
+                : cartRepository.findCartByUserIdAfter(foundUser.getId(), cursor.getId(), size + 1);
+        return Slices.of(carts, 1, size);
+    }
+
+    // 장바구니 목록에 내려줄 상품을 캐시 multi-get 과 IN 쿼리 한 번으로 모아서 조회한다. 삭제된 상품은 빠진다.
+    @Transactional(readOnly = true)
+    public Map<Long, Product> findCartProducts(List<Cart> carts) {
+        return productService.findProductsByIds(carts.stream()
+                .map(Cart::getProductId)
+                .collect(Collectors.toList()));
+    }
+
+    public Cursor cursorOf(Cart cart) {
+        return Cursor.of(redisCartStore.isEnabled() ? cart.getProductId() : cart.getId());
+    }
+
     @Transactional(readOnly = true)
     public long countCartByUserEmail(String email) {
-        return cartRepository.countCartByEmail(email);
+        if (redisCartStore.isEnabled()) {
+            return redisCartStore.count(userService.getUserByEmail(email).getId());
+        }
+        return userCountCache.get(COUNT_NAME, email, () -> cartRepository.countCartByEmail(email));
     }
 
     @Transactional
@@ -85,23 +253,174 @@ public class CartService {
         User foundUser = userService.getUserByEmail(email);
         checkUserAuthorization(foundCart.getUserId(), foundUser.getId());
 
+        if (redisCartStore.isEnabled()) {
+            removeStoredCart(foundUser, foundCart.getProductId());
+            return;
+        }
+
         cartRepository.delete(foundCart);
+        userCountCache.increment(COUNT_NAME, email, -1);
+        cartTotalCache.evict(email);
         log.info("Delete Cart. cartId = {}", cartId);
     }
 
+    @Transactional
+    public void deleteCartByProduct(String email, long productId) {
+        log.info("Start deleteCartByProduct. productId = {}", productId);
+        User foundUser = userService.getUserByEmail(email);
+
+        if (redisCartStore.isEnabled()) {
+            removeStoredCart(foundUser, productId);
+            return;
+        }
+
+        cartRepository.delete(getCart(foundUser.getId(), productId));
+        userCountCache.increment(COUNT_NAME, email, -1);
+        cartTotalCache.evict(email);
+        log.info("Delete Cart. productId = {}", productId);
+    }
+
     @Transactional(readOnly = true)
-    public int calculateTotalPrice(String email) {
+    public long calculateTotalPrice(String email) {
         log.info("Start calculateTotalPrice. email: {}", email);
-        User foundUser = userService.getUserByEmail(email);
-        List<Cart> carts = cartRepository.findAllByUserId(foundUser.getId());
 
-        return carts.parallelStream()
-                .mapToInt(cart -> {
-                    int quantity = cart.getQuantity();
-                    long productId = cart.getProductId();
-                    int price = productService.getProductById(productId).getPrice();
-                    return quantity * price;
-                }).sum();
+        if (redisCartStore.isEnabled()) {
+            return calculateStoredTotalPrice(userService.getUserByEmail(email));
+        }
+
+        // 상품별 조회 없이 SUM(quantity * price) 조인 쿼리 한 번으로 계산한다.
+        return cartTotalCache.get(email, () -> {
+            User foundUser = userService.getUserByEmail(email);
+            return cartRepository.sumTotalPriceByUserId(foundUser.getId());
+        });
+    }
+
+    private CartOperationStatus applyCartOperation(CartOperationDto operation, Map<Long, Integer> quantities, Set<Long> existingProductIds) {
+        long productId = operation.getProductId();
+        switch (operation.getType()) {
+            case ADD:
+                if (!existingProductIds.contains(productId)) {
+                    return CartOperationStatus.PRODUCT_NOT_FOUND;
+                }
+                if (quantities.containsKey(productId)) {
+                    return CartOperationStatus.DUPLICATE;
+                }
+                quantities.put(productId, operation.getQuantity());
+                return CartOperationStatus.APPLIED;
+            case UPDATE:
+                if (!quantities.containsKey(productId)) {
+                    return CartOperationStatus.NOT_FOUND;
+                }
+                quantities.put(productId, operation.getQuantity());
+                return CartOperationStatus.APPLIED;
+            case REMOVE:
+                return quantities.remove(productId) != null ? CartOperationStatus.APPLIED : CartOperationStatus.NOT_FOUND;
+            default:
+                throw new IllegalArgumentException("지원하지 않는 장바구니 작업. type = " + operation.getType());
+        }
+    }
+
+    // 바뀐 항목만 JDBC 배치로 반영한다.
+    private void saveCarts(String email, long userId, Map<Long, Integer> originalQuantities, Map<Long, Integer> quantities) {
+        Map<CartKey, Integer> savedQuantities = new HashMap<>();
+        List<CartKey> removedKeys = new ArrayList<>();
+        originalQuantities.keySet().stream()
+                .filter(productId -> !quantities.containsKey(productId))
+                .forEach(productId -> removedKeys.add(new CartKey(userId, productId)));
+        quantities.forEach((productId, quantity) -> {
+            if (!quantity.equals(originalQuantities.get(productId))) {
+                savedQuantities.put(new CartKey(userId, productId), quantity);
+            }
+        });
+
+        if (savedQuantities.isEmpty() && removedKeys.isEmpty()) {
+            return;
+        }
+
+        cartJdbcRepository.saveQuantities(savedQuantities, removedKeys);
+        userItemBloomFilter.add(COUNT_NAME, userId, savedQuantities.keySet().stream()
+                .map(CartKey::getProductId)
+                .collect(Collectors.toList()));
+        long delta = quantities.size() - originalQuantities.size();
+        if (delta != 0) {
+            userCountCache.increment(COUNT_NAME, email, delta);
+        }
+        cartTotalCache.evict(email);
+    }
+
+    private void saveStoredCarts(long userId, Map<Long, Integer> originalQuantities, Map<Long, Integer> quantities) {
+        originalQuantities.keySet().stream()
+                .filter(productId -> !quantities.containsKey(productId))
+                .forEach(productId -> redisCartStore.remove(userId, productId));
+        quantities.forEach((productId, quantity) -> {
+            Integer originalQuantity = originalQuantities.get(productId);
+            if (originalQuantity == null) {
+                redisCartStore.add(userId, productId, quantity);
+            } else if (!originalQuantity.equals(quantity)) {
+                redisCartStore.update(userId, productId, quantity);
+            }
+        });
+    }
+
+    // Redis 장바구니의 합계. 상품 가격도 상품 캐시에서 한 번에 읽는다.
+    // DB 모드의 조인 합계와 같이 삭제된 상품은 건너뛴다.
+    private long calculateStoredTotalPrice(User user) {
+        Map<Long, Integer> items = redisCartStore.findAll(user.getId());
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Product> products = productService.findProductsByIds(items.keySet());
+        long totalPrice = 0;
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            Product product = products.get(item.getKey());
+            if (product != null) {
+                totalPrice += (long) item.getValue() * product.getPrice();
+            }
+        }
+        return totalPrice;
+    }
+
+    private List<Cart> findStoredCarts(User user, long offset, int limit) {
+        return redisCartStore.findAll(user.getId()).entrySet().stream()
+                .skip(offset)
+                .limit(limit)
+                .map(item -> toCart(user, item.getKey(), item.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private Cart updateStoredCart(User user, long productId, int quantity) {
+        if (!redisCartStore.update(user.getId(), productId, quantity)) {
+            log.info("userId = {}, productId = {}", user.getId(), productId);
+            throw new DataNotFoundException("조회한 장바구니 정보가 없음");
+        }
+
+        log.info("Update cart. userId = {}, productId = {}", user.getId(), productId);
+        return toCart(user, productId, quantity);
+    }
+
+    private void removeStoredCart(User user, long productId) {
+        if (!redisCartStore.remove(user.getId(), productId)) {
+            log.info("userId = {}, productId = {}", user.getId(), productId);
+            throw new DataNotFoundException("조회한 장바구니 정보가 없음");
+        }
+        log.info("Delete Cart. userId = {}, productId = {}", user.getId(), productId);
+    }
+
+    // Redis 장바구니 항목은 DB 에 반영되기 전이라 id 가 없다.
+    private Cart toCart(User user, long productId, int quantity) {
+        return Cart.builder()
+                .user(user)
+                .product(Product.builder().id(productId).build())
+                .quantity(quantity)
+                .build();
+    }
+
+    private Cart getCart(long userId, long productId) {
+        return cartRepository.findCartByUserIdAndProductId(userId, productId).orElseThrow(() -> {
+            log.info("userId = {}, productId = {}", userId, productId);
+            return new DataNotFoundException("조회한 장바구니 정보가 없음");
+        });
     }
 
     private Cart getCart(long cartId) {
@@ -112,15 +431,30 @@ public class CartService {
         });
     }
 
+    // 필터가 있을 수도 있다고 할 때만 DB 를 확인한다. 대부분의 등록은 조회 없이 바로 INSERT 한다.
     private void checkDuplicateCartItem(long userId, long productId) {
-        log.info("Start checkDuplicateCartItem.");
+        boolean mightContain = userItemBloomFilter.mightContain(COUNT_NAME, userId, productId,
+                () -> cartJdbcRepository.findQuantitiesByUserId(userId).keySet());
 
-        if (cartRepository.isAlreadyExistentProductInUserCart(userId, productId)) {
+        if (mightContain && cartRepository.findCartByUserIdAndProductId(userId, productId).isPresent()) {
             log.info("userId = {}, productId = {}", userId, productId);
             throw new DuplicateDataException("이미 장바구니에 담긴 상품");
         }
     }
 
+    // 확인과 INSERT 사이에 들어온 중복은 (user_id, product_id) 유니크 키 위반으로 판단한다.
+    private Cart insertCart(Cart cart) {
+        try {
+            return cartRepository.saveAndFlush(cart);
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isViolated(e, Cart.UNIQUE_USER_PRODUCT)) {
+                throw e;
+            }
+            log.info("userId = {}, productId = {}", cart.getUserId(), cart.getProductId());
+            throw new DuplicateDataException("이미 장바구니에 담긴 상품", e);
+        }
+    }
+
     private void checkUserAuthorization(long ownerUserId, long loginUserId) {
         if (ownerUserId != loginUserId) {
             log.info("dataUserId = {}, loginUserId = {}", ownerUserId, loginUserId);
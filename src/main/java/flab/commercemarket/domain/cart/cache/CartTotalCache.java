@@ -0,0 +1,150 @@
+package flab.commercemarket.domain.cart.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * 사용자별 장바구니 합계 캐시. cart.total-cache.enabled 가 true 일 때만 동작한다.
+ * 사용자마다 hash(version, epoch, total) 하나를 두고, 장바구니가 바뀌면 version 을 올리고 total 을 지운다.
+ * 상품 가격이 바뀌면 전역 price epoch 를 올려서 epoch 가 다른 합계는 모두 무시한다. 가격 외의 상품 변경(좋아요 수 등)은 합계와 관계없다.
+ * 합계는 DB 조회 전에 읽은 version 이 그대로일 때만 저장하므로, 조회 중에 바뀐 장바구니의 합계가 남지 않는다.
+ */
+@Slf4j
+@Component
+public class CartTotalCache {
+
+    private static final String KEY_PREFIX = "cart:total:";
+    private static final String PRICE_EPOCH_KEY = "cart:total-price-epoch";
+
+    // {version, epoch, total, 현재 price epoch}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ = new DefaultRedisScript<>(
+            "local values = redis.call('HMGET', KEYS[1], 'version', 'epoch', 'total') " +
+                    "local priceEpoch = redis.call('GET', KEYS[2]) or '0' " +
+                    "return {values[1] or '0', values[2] or '', values[3] or '', priceEpoch}", List.class);
+
+    // 읽은 뒤로 version 이 바뀌지 않았을 때만 저장
+    private static final RedisScript<Long> WRITE_IF_UNCHANGED = new DefaultRedisScript<>(
+            "if (redis.call('HGET', KEYS[1], 'version') or '0') ~= ARGV[1] then " +
+                    "return 0 " +
+                    "end " +
+                    "redis.call('HSET', KEYS[1], 'epoch', ARGV[2], 'total', ARGV[3]) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[4]) " +
+                    "return 1", Long.class);
+
+    private static final RedisScript<Long> INVALIDATE = new DefaultRedisScript<>(
+            "redis.call('HDEL', KEYS[1], 'total') " +
+                    "local version = redis.call('HINCRBY', KEYS[1], 'version', 1) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "return version", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final boolean enabled;
+    private final long ttlSeconds;
+
+    public CartTotalCache(RedisTemplate<String, Object> redisTemplate,
+                          @Value("${cart.total-cache.enabled:false}") boolean enabled,
+                          @Value("${cart.total-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long get(String email, LongSupplier loader) {
+        if (!enabled) {
+            return loader.getAsLong();
+        }
+
+        String key = key(email);
+        try {
+            List<?> values = redisTemplate.execute(READ, Arrays.asList(key, PRICE_EPOCH_KEY));
+            String version = (String) values.get(0);
+            String epoch = (String) values.get(1);
+            String total = (String) values.get(2);
+            String priceEpoch = (String) values.get(3);
+
+            if (!total.isEmpty() && epoch.equals(priceEpoch)) {
+                return Long.parseLong(total);
+            }
+
+            long totalPrice = loader.getAsLong();
+            redisTemplate.execute(WRITE_IF_UNCHANGED, Collections.singletonList(key),
+                    version, priceEpoch, String.valueOf(totalPrice), String.valueOf(ttlSeconds));
+            return totalPrice;
+        } catch (DataAccessException e) {
+            log.warn("Fail to read cart total cache. key = {}", key, e);
+            return loader.getAsLong();
+        }
+    }
+
+    // 롤백된 변경으로 합계를 지우지 않도록 트랜잭션 안에서는 커밋 이후에 무효화한다.
+    public void evict(String email) {
+        if (!enabled) {
+            return;
+        }
+
+        String key = key(email);
+        Runnable invalidate = () -> {
+            try {
+                redisTemplate.execute(INVALIDATE, Collections.singletonList(key), String.valueOf(ttlSeconds));
+            } catch (DataAccessException e) {
+                log.warn("Fail to evict cart total cache. key = {}", key, e);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate.run();
+            }
+        });
+    }
+
+    // 가격이 실제로 바뀐 상품 수정에서만 부른다. 롤백된 변경으로 합계를 버리지 않도록 커밋 이후에 올린다.
+    public void priceChanged(long productId) {
+        if (!enabled) {
+            return;
+        }
+
+        Runnable bumpEpoch = () -> {
+            try {
+                redisTemplate.opsForValue().increment(PRICE_EPOCH_KEY);
+            } catch (DataAccessException e) {
+                log.warn("Fail to update cart total price epoch. productId = {}", productId, e);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpEpoch.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bumpEpoch.run();
+            }
+        });
+    }
+
+    private String key(String email) {
+        return KEY_PREFIX + email;
+    }
+}
@@ -0,0 +1,89 @@
+package flab.commercemarket.domain.cart.repository;
+
+import flab.commercemarket.common.id.JdbcIdAllocator;
+import flab.commercemarket.domain.cart.vo.CartKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Redis 장바구니의 변경분을 엔티티를 읽지 않고 배치 쿼리로 반영한다.
+@Repository
+@RequiredArgsConstructor
+public class CartJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcIdAllocator jdbcIdAllocator;
+
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> findQuantitiesByUserId(long userId) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart WHERE user_id = ?",
+                rs -> {
+                    quantities.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                },
+                userId);
+        return quantities;
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> findQuantitiesByUserIdAndProductIds(long userId, Collection<Long> productIds) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return quantities;
+        }
+
+        List<Object> args = new ArrayList<>(productIds.size() + 1);
+        args.add(userId);
+        args.addAll(productIds);
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+
+        jdbcTemplate.query("SELECT product_id, quantity FROM cart WHERE user_id = ? AND product_id IN (" + placeholders + ")",
+                rs -> {
+                    quantities.put(rs.getLong("product_id"), rs.getInt("quantity"));
+                },
+                args.toArray());
+        return quantities;
+    }
+
+    // (user_id, product_id) 유니크 키를 이용해 행마다 INSERT ... ON DUPLICATE KEY UPDATE 한 문장으로 반영한다.
+    // 이미 있는 행이면 새로 받은 id 는 사용되지 않고 버려진다.
+    @Transactional
+    public void saveQuantities(Map<CartKey, Integer> quantities, Collection<CartKey> removedKeys) {
+        if (!removedKeys.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "DELETE FROM cart WHERE user_id = ? AND product_id = ?",
+                    new ArrayList<>(removedKeys),
+                    BATCH_SIZE,
+                    (ps, key) -> {
+                        ps.setLong(1, key.getUserId());
+                        ps.setLong(2, key.getProductId());
+                    });
+        }
+
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO cart (id, user_id, product_id, quantity) VALUES (?, ?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)",
+                new ArrayList<>(quantities.entrySet()),
+                BATCH_SIZE,
+                (ps, entry) -> {
+                    ps.setLong(1, jdbcIdAllocator.next("cart"));
+                    ps.setLong(2, entry.getKey().getUserId());
+                    ps.setLong(3, entry.getKey().getProductId());
+                    ps.setInt(4, entry.getValue());
+                });
+    }
+}
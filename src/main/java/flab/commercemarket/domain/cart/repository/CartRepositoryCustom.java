@@ -5,10 +5,13 @@ import flab.commercemarket.domain.cart.vo.Cart;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CartRepositoryCustom {
     List<Cart> findCartByUserId(long userId, Pageable pageable);
+    List<Cart> findCartByUserIdAfter(long userId, long afterId, int limit);
     long countCartByEmail(String email);
     List<Cart> findAllByUserId(long userId);
-    boolean isAlreadyExistentProductInUserCart(long userId, long productId);
+    long sumTotalPriceByUserId(long userId);
+    Optional<Cart> findCartByUserIdAndProductId(long userId, long productId);
 }
@@ -1,13 +1,15 @@
 package flab.commercemarket.domain.cart.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import flab.commercemarket.domain.cart.vo.Cart;
 import flab.commercemarket.domain.cart.vo.QCart;
+import flab.commercemarket.domain.product.vo.QProduct;
 import org.springframework.data.domain.Pageable;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.Optional;
 
 public class CartRepositoryImpl implements CartRepositoryCustom {
 
@@ -27,6 +29,17 @@ public class CartRepositoryImpl implements CartRepositoryCustom {
                 .fetch();
     }
 
+    // (user_id, id) 인덱스 순서와 같아서 정렬 없이 인덱스 범위만 읽는다.
+    @Override
+    public List<Cart> findCartByUserIdAfter(long userId, long afterId, int limit) {
+        return queryFactory
+                .selectFrom(QCart.cart)
+                .where(QCart.cart.user.id.eq(userId).and(QCart.cart.id.gt(afterId)))
+                .orderBy(QCart.cart.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
     @Override
     public long countCartByEmail(String email) {
         Long totalCount = queryFactory
@@ -46,17 +59,26 @@ public class CartRepositoryImpl implements CartRepositoryCustom {
                 .fetch();
     }
 
+    // 상품 가격과 조인해서 DB 에서 합계를 구한다. 장바구니와 상품 엔티티는 영속성 컨텍스트에 올리지 않는다.
     @Override
-    public boolean isAlreadyExistentProductInUserCart(long userId, long productId) {
-        BooleanExpression whereClause = QCart.cart.user.id.eq(userId).and(QCart.cart.product.id.eq(productId));
-
-        Integer fetchOne = queryFactory
-                .selectOne()
+    public long sumTotalPriceByUserId(long userId) {
+        QProduct product = QProduct.product;
+        Long totalPrice = queryFactory
+                .select(Expressions.numberTemplate(Long.class, "sum({0} * {1})", QCart.cart.quantity, product.price))
                 .from(QCart.cart)
-                .where(whereClause)
-                .fetchFirst();
+                .join(QCart.cart.product, product)
+                .where(QCart.cart.user.id.eq(userId))
+                .fetchOne();
+
+        return totalPrice != null ? totalPrice : 0L;
+    }
 
-        return fetchOne != null;
+    @Override
+    public Optional<Cart> findCartByUserIdAndProductId(long userId, long productId) {
+        return Optional.ofNullable(queryFactory
+                .selectFrom(QCart.cart)
+                .where(QCart.cart.user.id.eq(userId).and(QCart.cart.product.id.eq(productId)))
+                .fetchFirst());
     }
 
 }
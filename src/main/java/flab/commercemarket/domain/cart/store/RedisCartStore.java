@@ -0,0 +1,311 @@
+package flab.commercemarket.domain.cart.store;
+
+import flab.commercemarket.domain.cart.repository.CartJdbcRepository;
+import flab.commercemarket.domain.cart.vo.CartKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 사용자 장바구니를 Redis hash(cart:{userId}, productId -> quantity) 로 들고 있는 저장소. cart.storage=redis 일 때만 사용한다.
+ * 처음 접근할 때 DB 에서 읽어 채우고, 변경은 Redis 에 바로 반영한 뒤 주기적으로 모아서 DB 에 쓴다. (write-behind)
+ * DB 는 복구용 원본이다. hash 에는 적재 여부를 나타내는 필드(_)를 같이 두고, 변경 스크립트는 적재된 hash 에만 적용된다.
+ * 반영할 상품은 변경 스크립트가 Redis set(cart:dirty, userId:productId) 에 같이 기록하므로 노드가 죽어도 다른 노드가 이어서 반영한다.
+ * 반영하는 노드는 키를 꺼내면서 점유 시각을 zset(cart:dirty:claimed) 에 남기고, 반영을 마치지 못한 채 점유 시간이 지난 키는 다시 꺼내진다.
+ */
+@Slf4j
+@Component
+public class RedisCartStore {
+
+    private static final String KEY_PREFIX = "cart:";
+    private static final String LOADED_FIELD = "_";
+    private static final String DIRTY_KEY = "cart:dirty";
+    private static final String CLAIMED_KEY = "cart:dirty:claimed";
+    private static final String PARKED_KEY = "cart:dirty:parked";
+
+    private static final long NOT_LOADED = -1L;
+
+    // ARGV = [ttl, field1, value1, field2, value2, ...]
+    private static final RedisScript<Long> LOAD = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 0 " +
+                    "end " +
+                    "redis.call('HSET', KEYS[1], unpack(ARGV, 2)) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    // KEYS = [cart, dirty], ARGV = [productId, quantity, ttl, dirtyMember]. 이미 담긴 상품이면 0
+    private static final RedisScript<Long> ADD = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "local added = redis.call('HSETNX', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+                    "if added == 1 then redis.call('SADD', KEYS[2], ARGV[4]) end " +
+                    "return added", Long.class);
+
+    // KEYS = [cart, dirty], ARGV = [productId, quantity, ttl, dirtyMember]. 담기지 않은 상품이면 0
+    private static final RedisScript<Long> UPDATE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then return 0 end " +
+                    "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+                    "redis.call('SADD', KEYS[2], ARGV[4]) " +
+                    "return 1", Long.class);
+
+    // KEYS = [cart, dirty], ARGV = [productId, ttl, dirtyMember]. 담기지 않은 상품이면 0
+    private static final RedisScript<Long> REMOVE = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "local removed = redis.call('HDEL', KEYS[1], ARGV[1]) " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+                    "if removed == 1 then redis.call('SADD', KEYS[2], ARGV[3]) end " +
+                    "return removed", Long.class);
+
+    // KEYS = [dirty, claimed], ARGV = [claimedAt, expiredBefore, count]
+    // 점유 시간이 지난 키를 먼저 되돌린 뒤 count 개를 꺼내 점유 시각을 남긴다.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM = new DefaultRedisScript<>(
+            "local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[2], 'LIMIT', 0, ARGV[3]) " +
+                    "for i = 1, #expired do " +
+                    "redis.call('SADD', KEYS[1], expired[i]) " +
+                    "redis.call('ZREM', KEYS[2], expired[i]) " +
+                    "end " +
+                    "local members = redis.call('SPOP', KEYS[1], ARGV[3]) " +
+                    "for i = 1, #members do redis.call('ZADD', KEYS[2], ARGV[1], members[i]) end " +
+                    "return members", List.class);
+
+    // KEYS = [claimed], ARGV = [claimedAt, member1, member2, ...]
+    // 그사이 다른 노드가 다시 꺼낸 키는 그 노드의 점유로 남겨둔다.
+    private static final RedisScript<Long> ACK = new DefaultRedisScript<>(
+            "local acked = 0 " +
+                    "for i = 2, #ARGV do " +
+                    "if tonumber(redis.call('ZSCORE', KEYS[1], ARGV[i])) == tonumber(ARGV[1]) then " +
+                    "acked = acked + redis.call('ZREM', KEYS[1], ARGV[i]) " +
+                    "end " +
+                    "end " +
+                    "return acked", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CartJdbcRepository cartJdbcRepository;
+    private final boolean enabled;
+    private final long ttlSeconds;
+    private final int flushBatchSize;
+    private final long claimTimeoutMs;
+
+    public RedisCartStore(RedisTemplate<String, Object> redisTemplate,
+                          CartJdbcRepository cartJdbcRepository,
+                          @Value("${cart.storage:db}") String storage,
+                          @Value("${cart.redis.ttl-seconds:86400}") long ttlSeconds,
+                          @Value("${cart.redis.flush-batch-size:500}") int flushBatchSize,
+                          @Value("${cart.redis.claim-timeout-ms:60000}") long claimTimeoutMs) {
+        this.redisTemplate = redisTemplate;
+        this.cartJdbcRepository = cartJdbcRepository;
+        this.enabled = "redis".equalsIgnoreCase(storage);
+        this.ttlSeconds = ttlSeconds;
+        this.flushBatchSize = flushBatchSize;
+        this.claimTimeoutMs = claimTimeoutMs;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // productId 오름차순
+    public SortedMap<Long, Integer> findAll(long userId) {
+        load(userId);
+
+        SortedMap<Long, Integer> items = new TreeMap<>();
+        redisTemplate.opsForHash().entries(key(userId)).forEach((field, value) -> {
+            if (!LOADED_FIELD.equals(field)) {
+                items.put(Long.parseLong((String) field), Integer.parseInt((String) value));
+            }
+        });
+        return items;
+    }
+
+    public long count(long userId) {
+        load(userId);
+        Long size = redisTemplate.opsForHash().size(key(userId));
+        return size != null ? Math.max(size - 1, 0) : 0L;
+    }
+
+    public boolean add(long userId, long productId, int quantity) {
+        return change(ADD, userId, String.valueOf(productId), String.valueOf(quantity), String.valueOf(ttlSeconds),
+                dirtyMember(userId, productId));
+    }
+
+    public boolean update(long userId, long productId, int quantity) {
+        return change(UPDATE, userId, String.valueOf(productId), String.valueOf(quantity), String.valueOf(ttlSeconds),
+                dirtyMember(userId, productId));
+    }
+
+    public boolean remove(long userId, long productId) {
+        return change(REMOVE, userId, String.valueOf(productId), String.valueOf(ttlSeconds),
+                dirtyMember(userId, productId));
+    }
+
+    @Scheduled(fixedDelayString = "${cart.redis.flush-interval-ms:1000}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            while (true) {
+                long claimedAt = System.currentTimeMillis();
+                List<String> members = claim(claimedAt);
+                if (members.isEmpty()) {
+                    return;
+                }
+
+                boolean flushed = flushOrPark(members);
+                if (!flushed) {
+                    // 하나도 반영하지 못했으면 DB 장애로 보고 되돌려둔 뒤 다음 주기에 다시 시도한다.
+                    redisTemplate.opsForSet().add(DIRTY_KEY, members.toArray());
+                }
+                ack(claimedAt, members);
+                if (!flushed) {
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            // 점유한 키는 점유 시간이 지나면 다시 꺼내진다.
+            log.warn("Fail to flush carts.", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // 묶음 반영에 실패하면 키마다 다시 시도하고, 그래도 실패한 키는 따로 모아두어 나머지를 막지 않게 한다.
+    private boolean flushOrPark(List<String> members) {
+        List<CartKey> keys = new ArrayList<>(members.size());
+        members.forEach(member -> keys.add(cartKey(member)));
+        try {
+            flush(keys);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Fail to flush carts. Retry one by one. size = {}", keys.size(), e);
+        }
+
+        List<String> failedMembers = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            try {
+                flush(Collections.singletonList(keys.get(i)));
+            } catch (DataAccessException e) {
+                log.warn("Fail to flush cart. key = {}", keys.get(i), e);
+                failedMembers.add(members.get(i));
+            }
+        }
+        if (failedMembers.size() == members.size()) {
+            return false;
+        }
+
+        if (!failedMembers.isEmpty()) {
+            redisTemplate.opsForSet().add(PARKED_KEY, failedMembers.toArray());
+            log.error("Park carts failed to flush. keys = {}", failedMembers);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claim(long claimedAt) {
+        List<String> members = redisTemplate.execute(CLAIM, Arrays.asList(DIRTY_KEY, CLAIMED_KEY),
+                String.valueOf(claimedAt), String.valueOf(claimedAt - claimTimeoutMs), String.valueOf(flushBatchSize));
+        return members != null ? members : Collections.emptyList();
+    }
+
+    private void ack(long claimedAt, List<String> members) {
+        List<Object> args = new ArrayList<>(members.size() + 1);
+        args.add(String.valueOf(claimedAt));
+        args.addAll(members);
+        redisTemplate.execute(ACK, Collections.singletonList(CLAIMED_KEY), args.toArray());
+    }
+
+    private void flush(List<CartKey> keys) {
+        Map<Long, List<CartKey>> keysByUser = new HashMap<>();
+        for (CartKey key : keys) {
+            keysByUser.computeIfAbsent(key.getUserId(), userId -> new ArrayList<>()).add(key);
+        }
+
+        Map<CartKey, Integer> quantities = new HashMap<>();
+        List<CartKey> removedKeys = new ArrayList<>();
+        keysByUser.forEach((userId, userKeys) -> {
+            List<Object> fields = new ArrayList<>(userKeys.size() + 1);
+            fields.add(LOADED_FIELD);
+            userKeys.forEach(key -> fields.add(String.valueOf(key.getProductId())));
+
+            List<Object> values = redisTemplate.opsForHash().multiGet(key(userId), fields);
+            if (values.get(0) == null) {
+                // 반영 전에 hash 가 만료되었다. DB 에 남은 마지막 반영 값을 유지한다.
+                log.warn("Cart expired before flush. userId = {}, size = {}", userId, userKeys.size());
+                return;
+            }
+
+            for (int i = 0; i < userKeys.size(); i++) {
+                Object value = values.get(i + 1);
+                if (value == null) {
+                    removedKeys.add(userKeys.get(i));
+                } else {
+                    quantities.put(userKeys.get(i), Integer.parseInt((String) value));
+                }
+            }
+        });
+
+        cartJdbcRepository.saveQuantities(quantities, removedKeys);
+        log.info("Flush carts. saved = {}, removed = {}", quantities.size(), removedKeys.size());
+    }
+
+    private boolean change(RedisScript<Long> script, long userId, Object... args) {
+        List<String> keys = Arrays.asList(key(userId), DIRTY_KEY);
+        Long result = redisTemplate.execute(script, keys, args);
+        if (result != null && result == NOT_LOADED) {
+            load(userId);
+            result = redisTemplate.execute(script, keys, args);
+        }
+        return result != null && result == 1L;
+    }
+
+    private void load(long userId) {
+        String key = key(userId);
+        if (Boolean.TRUE.equals(redisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS))) {
+            return;
+        }
+
+        Map<Long, Integer> quantities = cartJdbcRepository.findQuantitiesByUserId(userId);
+        List<Object> args = new ArrayList<>(quantities.size() * 2 + 3);
+        args.add(String.valueOf(ttlSeconds));
+        args.add(LOADED_FIELD);
+        args.add("1");
+        quantities.forEach((productId, quantity) -> {
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+        });
+
+        redisTemplate.execute(LOAD, Collections.singletonList(key), args.toArray());
+    }
+
+    private String key(long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static String dirtyMember(long userId, long productId) {
+        return userId + ":" + productId;
+    }
+
+    private static CartKey cartKey(String dirtyMember) {
+        int separator = dirtyMember.indexOf(':');
+        return new CartKey(Long.parseLong(dirtyMember.substring(0, separator)),
+                Long.parseLong(dirtyMember.substring(separator + 1)));
+    }
+}
@@ -1,33 +1,43 @@
 package flab.commercemarket.domain.cart.vo;
 
+import flab.commercemarket.common.id.PooledIdGenerator;
 import flab.commercemarket.controller.cart.dto.CartResponseDto;
 import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.user.vo.User;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
+// (user_id, product_id) 유니크 키는 중복 확인용이고, 사용자별 커서 조회는 (user_id, id) 인덱스로 정렬 없이 읽는다.
 @Getter
 @Builder
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(indexes = {
-        @Index(name = "idx_user_id", columnList = "user_id"),
-        @Index(name = "idx_product_id", columnList = "product_id")
-})
+@Table(uniqueConstraints = @UniqueConstraint(name = Cart.UNIQUE_USER_PRODUCT, columnNames = {"user_id", "product_id"}),
+        indexes = {
+                @Index(name = "idx_user_id_id", columnList = "user_id, id"),
+                @Index(name = "idx_product_id", columnList = "product_id")
+        })
 @ToString
 public class Cart {
+
+    public static final String UNIQUE_USER_PRODUCT = "uk_cart_user_product";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "cart_id")
+    @GenericGenerator(name = "cart_id", strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
-    @OneToOne
+    @ManyToOne
     @JoinColumn(name = "user_id")
     private User user;
 
-    @OneToOne
+    // 목록 조회에서는 상품 id 만 쓰고, 상품 정보가 필요하면 따로 모아서 조회한다.
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
+    @ToString.Exclude
     private Product product;
 
     @Setter
@@ -0,0 +1,16 @@
+package flab.commercemarket.domain.cart.vo;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+// 사용자 장바구니 안의 상품 한 개를 가리키는 키
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class CartKey {
+    private final long userId;
+    private final long productId;
+}
@@ -0,0 +1,10 @@
+package flab.commercemarket.domain.cart.vo;
+
+public enum CartOperationStatus {
+    APPLIED,
+    // 이미 담긴 상품을 ADD
+    DUPLICATE,
+    // 담기지 않은 상품을 UPDATE, REMOVE
+    NOT_FOUND,
+    PRODUCT_NOT_FOUND
+}
@@ -0,0 +1,5 @@
+package flab.commercemarket.domain.cart.vo;
+
+public enum CartOperationType {
+    ADD, UPDATE, REMOVE
+}
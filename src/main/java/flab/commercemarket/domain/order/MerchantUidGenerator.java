@@ -0,0 +1,71 @@
+package flab.commercemarket.domain.order;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * PG 사에 넘기는 주문 고유 번호(merchantUid) 생성기. Snowflake 방식으로 64 bit id 를 만든다.
+ * [EPOCH 이후 ms 41 bit][노드 id 10 bit][ms 안의 순번 12 bit] 이므로 노드마다 order.merchant-uid.node-id 가 달라야 한다.
+ * 마지막으로 만든 (ms, 순번) 을 AtomicLong 하나에 두고 CAS 로 올리므로 잠금 없이 노드 안에서 항상 증가한다.
+ * 시계가 뒤로 가거나 한 ms 에 순번을 다 쓰면 마지막 ms 에서 계속 올려서 다음 ms 를 미리 빌려 쓴다.
+ * 재시작 전보다 시계가 뒤로 간 경우는 막지 못하므로 merchantUid 유니크 제약은 그대로 둔다.
+ */
+@Component
+public class MerchantUidGenerator {
+
+    // 2023-01-01T00:00:00Z
+    static final long EPOCH = 1672531200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "merch_";
+    // Long.MAX_VALUE 의 자릿수. 0 으로 채워서 문자열 순서와 id 순서를 맞춘다.
+    private static final int DIGITS = 19;
+
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+    private final long nodeBits;
+    private final LongSupplier clock;
+
+    @Autowired
+    public MerchantUidGenerator(@Value("${order.merchant-uid.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public MerchantUidGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("node id must be between 0 and " + MAX_NODE_ID + ". nodeId = " + nodeId);
+        }
+        this.nodeBits = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public String next() {
+        long id = nextId();
+        char[] chars = new char[PREFIX.length() + DIGITS];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = (char) ('0' + id % 10);
+            id /= 10;
+        }
+        return new String(chars);
+    }
+
+    public long nextId() {
+        while (true) {
+            long last = lastTimeAndSequence.get();
+            long now = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+            // 순번이 넘치면 ms 자리로 올라가므로 다음 ms 를 빌려 쓰게 된다.
+            long next = now > last ? now : last + 1;
+            if (lastTimeAndSequence.compareAndSet(last, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+}
@@ -1,27 +1,38 @@
 package flab.commercemarket.domain.order;
 
+import flab.commercemarket.common.count.UserCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
 import flab.commercemarket.common.exception.ForbiddenException;
+import flab.commercemarket.common.exception.OrderQueueFullException;
 import flab.commercemarket.common.helper.AuthorizationHelper;
+import flab.commercemarket.controller.order.dto.OrderProductRequestDto;
 import flab.commercemarket.controller.order.dto.OrderRequestDto;
+import flab.commercemarket.domain.order.intake.OrderIntake;
+import flab.commercemarket.domain.order.intake.OrderIntakeQueue;
+import flab.commercemarket.domain.order.intake.PendingOrder;
 import flab.commercemarket.domain.order.repository.OrderRepository;
 import flab.commercemarket.common.utils.DateUtils;
+import flab.commercemarket.common.pagination.Cursor;
+import flab.commercemarket.common.pagination.OffsetPageRequest;
+import flab.commercemarket.common.pagination.Slices;
 import flab.commercemarket.domain.order.vo.Order;
-import flab.commercemarket.domain.order.vo.OrderProduct;
 import flab.commercemarket.domain.product.ProductService;
 import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.stock.StockService;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -30,27 +41,56 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderService {
 
+    public static final String COUNT_NAME = "order";
+
     private final UserService userService;
     private final ProductService productService;
     private final OrderRepository orderRepository;
     private final DateUtils dateUtils;
+    private final UserCountCache userCountCache;
+    private final StockService stockService;
+    private final OrderIntakeQueue orderIntakeQueue;
+    private final MerchantUidGenerator merchantUidGenerator;
 
     @Transactional
     public Order registerOrder(String email, OrderRequestDto orderRequestDto) {
         log.info("Start registerOrder");
         User buyer = userService.getUserByEmail(email);
-        List<OrderProduct> orderProductList = createOrderProductList(orderRequestDto);
-        LocalDateTime orderedAt = LocalDateTime.now();
-        String merchantUid = merchantUidBuilder(buyer.getId(), orderedAt);
-        BigDecimal orderPrice = calculateOrderPrice(orderRequestDto);
+        Map<Long, Product> products = findOrderedProducts(orderRequestDto);
+        // 재고가 부족하면 OutOfStockException. 이후 단계에서 실패해 롤백되면 예약은 되돌려진다.
+        stockService.reserve(orderedQuantities(orderRequestDto));
+        PendingOrder pendingOrder = createPendingOrder(buyer, orderRequestDto, products);
+
+        Order savedOrder = orderRepository.save(pendingOrder.toOrder());
+        userCountCache.incrementInRange(COUNT_NAME, email, pendingOrder.getOrderedAt(), 1);
+        return savedOrder;
+    }
 
-        return orderRepository.save(Order.builder()
-                .user(buyer)
-                .orderProduct(orderProductList)
-                .orderedAt(orderedAt)
-                .orderPrice(orderPrice)
-                .merchantUid(merchantUid)
-                .build());
+    public boolean isAsyncIntakeEnabled() {
+        return orderIntakeQueue.isEnabled();
+    }
+
+    // 저장은 대기열에 넘기고 접수 상태를 바로 돌려준다. 트랜잭션 밖이므로 재고는 바로 예약되고, 대기열에 넣지 못하면 반환한다.
+    public OrderIntake acceptOrder(String email, OrderRequestDto orderRequestDto) {
+        log.info("Start acceptOrder");
+        User buyer = userService.getUserByEmail(email);
+        Map<Long, Product> products = findOrderedProducts(orderRequestDto);
+        Map<Long, Integer> quantities = orderedQuantities(orderRequestDto);
+        stockService.reserve(quantities);
+        PendingOrder pendingOrder = createPendingOrder(buyer, orderRequestDto, products);
+
+        try {
+            return orderIntakeQueue.accept(pendingOrder);
+        } catch (OrderQueueFullException e) {
+            stockService.release(quantities);
+            throw e;
+        }
+    }
+
+    // 접수한 노드에 상태가 남아 있지 않으면 저장된 주문을 찾는다.
+    public OrderIntake getOrderIntake(String merchantUid) {
+        return orderIntakeQueue.find(merchantUid)
+                .orElseGet(() -> OrderIntake.completed(getOrderByMerchantUid(merchantUid)));
     }
 
     public Order getOrder(long orderId) {
@@ -83,7 +123,21 @@ public class OrderService {
             throw new ForbiddenException("권한 정보가 일치하지 않음");
         }
 
+        releaseStock(order);
         orderRepository.delete(order);
+        userCountCache.incrementInRange(COUNT_NAME, email, order.getOrderedAt(), -1);
+    }
+
+    // 주문 삭제, 결제 실패 때 재고 예약을 반환한다. 이미 반환한 주문이면 아무것도 하지 않는다.
+    @Transactional
+    public void releaseStock(Order order) {
+        if (!orderRepository.markStockReleased(order.getId())) {
+            log.info("Stock already released. orderId = {}", order.getId());
+            return;
+        }
+
+        stockService.release(order.getProductQuantities());
+        log.info("Release stock. orderId = {}", order.getId());
     }
 
     @Transactional(readOnly = true)
@@ -97,42 +151,72 @@ public class OrderService {
         return orderRepository.findBetweenDateTime(foundUser.getId(), startDateTime, endDateTime, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<Order> getOrderSliceByDate(String email, String startDate, String endDate, int page, int size) {
+        LocalDateTime startDateTime = dateUtils.parseDateTime(startDate + "T00:00:00");
+        LocalDateTime endDateTime = dateUtils.parseDateTime(endDate + "T23:59:59");
+        log.info("Parse String to LocalDateTime. startDateTime: {}, endDateTime: {}", startDateTime, endDateTime);
+
+        User foundUser = userService.getUserByEmail(email);
+        List<Order> orders = orderRepository.findBetweenDateTime(foundUser.getId(), startDateTime, endDateTime,
+                OffsetPageRequest.forSlice(page, size));
+        return Slices.of(orders, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<Order> getOrderByDateAfter(String email, String startDate, String endDate, String after, int size) {
+        LocalDateTime startDateTime = dateUtils.parseDateTime(startDate + "T00:00:00");
+        LocalDateTime endDateTime = dateUtils.parseDateTime(endDate + "T23:59:59");
+        Cursor cursor = Cursor.decode(after);
+        log.info("Parse String to LocalDateTime. startDateTime: {}, endDateTime: {}, after: {}", startDateTime, endDateTime, cursor.getDateTime());
+
+        User foundUser = userService.getUserByEmail(email);
+        List<Order> orders = orderRepository.findBetweenDateTimeAfter(foundUser.getId(), startDateTime, endDateTime,
+                cursor.getDateTime(), cursor.getId(), size + 1);
+        return Slices.of(orders, 1, size);
+    }
+
     @Transactional(readOnly = true)
     public long countOrderByDate(String email, String startDate, String endDate) {
         log.info("Start countOrderByDate.");
         LocalDateTime startDateTime = dateUtils.parseDateTime(startDate + "T00:00:00");
         LocalDateTime endDateTime = dateUtils.parseDateTime(endDate + "T23:59:59");
-        User foundUser = userService.getUserByEmail(email);
-        return orderRepository.countOrderBetweenDate(foundUser.getId(), startDateTime, endDateTime);
+        return userCountCache.getInRange(COUNT_NAME, email, startDateTime, endDateTime, () -> {
+            User foundUser = userService.getUserByEmail(email);
+            return orderRepository.countOrderBetweenDate(foundUser.getId(), startDateTime, endDateTime);
+        });
     }
 
-    // PG 사에서 사용하는 주문 고유 번호. 유니크한 값이어야함
-    private String merchantUidBuilder(long loginUserId, LocalDateTime orderedAt) {
-        int mills = orderedAt.getNano();
-        return String.format("merch_%03d_%d", mills, loginUserId);
+    // 주문 상품을 한 번에 조회해서 가격 계산과 주문 상품 생성에 같이 사용한다.
+    private Map<Long, Product> findOrderedProducts(OrderRequestDto orderRequestDto) {
+        List<Long> productIds = orderRequestDto.getProducts().stream()
+                .map(OrderProductRequestDto::getProductId)
+                .collect(Collectors.toList());
+        return productService.getProductsByIds(productIds);
     }
 
-    private BigDecimal calculateOrderPrice(OrderRequestDto orderRequestDto) {
+    private Map<Long, Integer> orderedQuantities(OrderRequestDto orderRequestDto) {
+        return orderRequestDto.getProducts().stream()
+                .collect(Collectors.toMap(OrderProductRequestDto::getProductId, OrderProductRequestDto::getQuantity, Integer::sum));
+    }
+
+    private BigDecimal calculateOrderPrice(OrderRequestDto orderRequestDto, Map<Long, Product> products) {
         return orderRequestDto.getProducts().stream()
                 .map(product -> {
-                    long productId = product.getProductId();
-                    Product foundProduct = productService.getProductById(productId);
+                    Product foundProduct = products.get(product.getProductId());
                     return BigDecimal.valueOf(product.getQuantity()).multiply(BigDecimal.valueOf(foundProduct.getPrice()));
                 })
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
     }
 
-    private List<OrderProduct> createOrderProductList(OrderRequestDto orderRequestDto) {
-        return orderRequestDto.getProducts()
-                .stream()
-                .map(orderProductRequestDto -> {
-                    Product foundProduct = productService.getProductById(orderProductRequestDto.getProductId());
-                    int quantity = orderProductRequestDto.getQuantity();
-                    return OrderProduct.builder()
-                            .product(foundProduct)
-                            .quantity(quantity)
-                            .build();
-                })
-                .collect(Collectors.toList());
+    private PendingOrder createPendingOrder(User buyer, OrderRequestDto orderRequestDto, Map<Long, Product> products) {
+        return PendingOrder.builder()
+                .buyer(buyer)
+                .orderProducts(orderRequestDto.getProducts())
+                .products(products)
+                .orderedAt(LocalDateTime.now())
+                .orderPrice(calculateOrderPrice(orderRequestDto, products))
+                .merchantUid(merchantUidGenerator.next())
+                .build();
     }
 }
@@ -0,0 +1,43 @@
+package flab.commercemarket.domain.order.intake;
+
+import flab.commercemarket.common.count.UserCountCache;
+import flab.commercemarket.domain.order.OrderService;
+import flab.commercemarket.domain.order.repository.OrderRepository;
+import flab.commercemarket.domain.order.vo.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+// 대기열의 주문을 여러 건 묶어서 트랜잭션 하나로 저장한다. 커밋이 묶음마다 한 번이므로 주문마다 커밋하는 것보다 DB 부담이 적다.
+@Component
+@RequiredArgsConstructor
+public class OrderBatchWriter {
+
+    private final OrderRepository orderRepository;
+    private final UserCountCache userCountCache;
+
+    @Transactional
+    public List<Order> saveAll(List<PendingOrder> pendingOrders) {
+        List<Order> orders = pendingOrders.stream()
+                .map(PendingOrder::toOrder)
+                .collect(Collectors.toList());
+
+        List<Order> savedOrders = orderRepository.saveAll(orders);
+        savedOrders.forEach(this::incrementOrderCount);
+        return savedOrders;
+    }
+
+    @Transactional
+    public Order save(PendingOrder pendingOrder) {
+        Order savedOrder = orderRepository.save(pendingOrder.toOrder());
+        incrementOrderCount(savedOrder);
+        return savedOrder;
+    }
+
+    private void incrementOrderCount(Order order) {
+        userCountCache.incrementInRange(OrderService.COUNT_NAME, order.getUser().getEmail(), order.getOrderedAt(), 1);
+    }
+}
@@ -0,0 +1,36 @@
+package flab.commercemarket.domain.order.intake;
+
+import flab.commercemarket.controller.order.dto.OrderIntakeResponseDto;
+import flab.commercemarket.domain.order.vo.Order;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 접수한 주문의 처리 상태. merchantUid 로 찾고, 저장이 끝나면 orderId 가 채워진다.
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderIntake {
+    private final String merchantUid;
+    private final OrderIntakeStatus status;
+    private final Long orderId;
+
+    public static OrderIntake accepted(String merchantUid) {
+        return new OrderIntake(merchantUid, OrderIntakeStatus.ACCEPTED, null);
+    }
+
+    public static OrderIntake completed(Order order) {
+        return new OrderIntake(order.getMerchantUid(), OrderIntakeStatus.COMPLETED, order.getId());
+    }
+
+    public static OrderIntake failed(String merchantUid) {
+        return new OrderIntake(merchantUid, OrderIntakeStatus.FAILED, null);
+    }
+
+    public OrderIntakeResponseDto toOrderIntakeResponseDto() {
+        return OrderIntakeResponseDto.builder()
+                .merchantUid(merchantUid)
+                .status(status)
+                .orderId(orderId)
+                .build();
+    }
+}
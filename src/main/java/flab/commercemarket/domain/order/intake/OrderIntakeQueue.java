@@ -0,0 +1,183 @@
+package flab.commercemarket.domain.order.intake;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import flab.commercemarket.common.exception.OrderQueueFullException;
+import flab.commercemarket.domain.order.vo.Order;
+import flab.commercemarket.domain.stock.StockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 비동기 접수 대기열. order.intake.mode=async 일 때만 동작한다.
+ * 검증, 가격 계산, 재고 예약이 끝난 주문을 크기가 정해진 대기열에 넣고, writer 스레드들이 batchSize 만큼씩 꺼내서
+ * OrderBatchWriter 로 한 트랜잭션에 저장한다. 대기열이 가득 차면 OrderQueueFullException(503) 을 던진다.
+ * 묶음 저장에 실패하면 한 건씩 다시 저장하고, 그래도 실패한 주문은 FAILED 로 남기고 재고를 반환한다.
+ * 처리 상태는 접수한 노드의 메모리에 resultTtl 동안만 남으므로, 이후에는 merchantUid 로 DB 를 조회한다.
+ */
+@Slf4j
+@Component
+public class OrderIntakeQueue {
+
+    private static final long POLL_TIMEOUT_MS = 100L;
+
+    private final OrderBatchWriter orderBatchWriter;
+    private final StockService stockService;
+    private final boolean enabled;
+    private final int writerCount;
+    private final int batchSize;
+    private final BlockingQueue<PendingOrder> queue;
+    private final Cache<String, OrderIntake> intakes;
+    private final Counter rejectedCounter;
+    private final Counter failureCounter;
+
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    public OrderIntakeQueue(OrderBatchWriter orderBatchWriter,
+                            StockService stockService,
+                            MeterRegistry meterRegistry,
+                            @Value("${order.intake.mode:sync}") String mode,
+                            @Value("${order.intake.capacity:10000}") int capacity,
+                            @Value("${order.intake.writers:4}") int writerCount,
+                            @Value("${order.intake.batch-size:50}") int batchSize,
+                            @Value("${order.intake.result-ttl-seconds:600}") long resultTtlSeconds) {
+        this.orderBatchWriter = orderBatchWriter;
+        this.stockService = stockService;
+        this.enabled = "async".equalsIgnoreCase(mode);
+        this.writerCount = writerCount;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.intakes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(resultTtlSeconds))
+                .build();
+        Gauge.builder("order.intake.queue", queue, BlockingQueue::size)
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("order.intake.rejected")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("order.intake.failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        running = true;
+        writers = Executors.newFixedThreadPool(writerCount);
+        for (int i = 0; i < writerCount; i++) {
+            writers.execute(this::runWriter);
+        }
+    }
+
+    // 종료할 때는 더 받지 않고, 대기열에 남은 주문을 모두 저장한 뒤 끝낸다.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writers == null) {
+            return;
+        }
+
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Order intake writers did not finish. remaining = {}", queue.size());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public OrderIntake accept(PendingOrder pendingOrder) {
+        OrderIntake intake = OrderIntake.accepted(pendingOrder.getMerchantUid());
+        intakes.put(intake.getMerchantUid(), intake);
+
+        if (!running || !queue.offer(pendingOrder)) {
+            intakes.invalidate(intake.getMerchantUid());
+            rejectedCounter.increment();
+            log.info("Order intake queue is full. merchantUid = {}", intake.getMerchantUid());
+            throw new OrderQueueFullException("주문 대기열이 가득 참");
+        }
+        return intake;
+    }
+
+    public Optional<OrderIntake> find(String merchantUid) {
+        return Optional.ofNullable(intakes.getIfPresent(merchantUid));
+    }
+
+    private void runWriter() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Unexpected error in order intake writer. size = {}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        try {
+            List<Order> savedOrders = orderBatchWriter.saveAll(batch);
+            savedOrders.forEach(order -> complete(OrderIntake.completed(order)));
+            log.info("Save order batch. size = {}", savedOrders.size());
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Fail to save order batch. size = {}", batch.size(), e);
+        }
+
+        // 한 주문 때문에 묶음 전체가 실패하지 않도록 한 건씩 다시 저장한다.
+        for (PendingOrder pendingOrder : batch) {
+            try {
+                complete(OrderIntake.completed(orderBatchWriter.save(pendingOrder)));
+            } catch (RuntimeException e) {
+                log.warn("Fail to save order. merchantUid = {}", pendingOrder.getMerchantUid(), e);
+                failureCounter.increment();
+                complete(OrderIntake.failed(pendingOrder.getMerchantUid()));
+                releaseStock(pendingOrder);
+            }
+        }
+    }
+
+    private void releaseStock(PendingOrder pendingOrder) {
+        try {
+            stockService.release(pendingOrder.getProductQuantities());
+        } catch (RuntimeException e) {
+            log.warn("Fail to release stock. merchantUid = {}", pendingOrder.getMerchantUid(), e);
+        }
+    }
+
+    private void complete(OrderIntake intake) {
+        intakes.put(intake.getMerchantUid(), intake);
+    }
+}
@@ -0,0 +1,5 @@
+package flab.commercemarket.domain.order.intake;
+
+public enum OrderIntakeStatus {
+    ACCEPTED, COMPLETED, FAILED
+}
@@ -0,0 +1,49 @@
+package flab.commercemarket.domain.order.intake;
+
+import flab.commercemarket.controller.order.dto.OrderProductRequestDto;
+import flab.commercemarket.domain.order.vo.Order;
+import flab.commercemarket.domain.order.vo.OrderProduct;
+import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.user.vo.User;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// 검증과 가격 계산이 끝난 저장 전 주문. 저장에 실패하면 새 엔티티로 다시 저장할 수 있도록 엔티티 대신 값을 들고 있다.
+@Getter
+@Builder
+public class PendingOrder {
+    private final User buyer;
+    private final List<OrderProductRequestDto> orderProducts;
+    private final Map<Long, Product> products;
+    private final LocalDateTime orderedAt;
+    private final BigDecimal orderPrice;
+    private final String merchantUid;
+
+    public Order toOrder() {
+        List<OrderProduct> orderProductList = orderProducts.stream()
+                .map(orderProductRequestDto -> OrderProduct.builder()
+                        .product(products.get(orderProductRequestDto.getProductId()))
+                        .quantity(orderProductRequestDto.getQuantity())
+                        .build())
+                .collect(Collectors.toList());
+
+        return Order.builder()
+                .user(buyer)
+                .orderProduct(orderProductList)
+                .orderedAt(orderedAt)
+                .orderPrice(orderPrice)
+                .merchantUid(merchantUid)
+                .build();
+    }
+
+    public Map<Long, Integer> getProductQuantities() {
+        return orderProducts.stream()
+                .collect(Collectors.toMap(OrderProductRequestDto::getProductId, OrderProductRequestDto::getQuantity, Integer::sum));
+    }
+}
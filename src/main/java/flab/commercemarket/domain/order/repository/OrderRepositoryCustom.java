@@ -9,5 +9,7 @@ import java.util.Optional;
 
 public interface OrderRepositoryCustom {
     List<Order> findBetweenDateTime(long userId, LocalDateTime startDateTime, LocalDateTime endDateTime, Pageable pageable);
+    List<Order> findBetweenDateTimeAfter(long userId, LocalDateTime startDateTime, LocalDateTime endDateTime, LocalDateTime afterOrderedAt, long afterId, int limit);
     long countOrderBetweenDate(long userId, LocalDateTime startDateTime, LocalDateTime endDateTime);
+    boolean markStockReleased(long orderId);
 }
@@ -1,5 +1,6 @@
 package flab.commercemarket.domain.order.repository;
 
+import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import flab.commercemarket.domain.order.vo.Order;
 import org.springframework.data.domain.Pageable;
@@ -27,6 +28,20 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
                 .fetch();
     }
 
+    // (ordered_at, id) 순서로 이어서 조회한다. afterOrderedAt 이 null 이면 첫 페이지
+    @Override
+    public List<Order> findBetweenDateTimeAfter(long userId, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                                LocalDateTime afterOrderedAt, long afterId, int limit) {
+        return queryFactory
+                .selectFrom(order)
+                .where(order.orderedAt.between(startDateTime, endDateTime),
+                        order.user.id.eq(userId),
+                        afterPosition(afterOrderedAt, afterId))
+                .orderBy(order.orderedAt.asc(), order.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
     @Override
     public long countOrderBetweenDate(long userId, LocalDateTime startDateTime, LocalDateTime endDateTime) {
         return queryFactory
@@ -36,4 +51,24 @@ public class OrderRepositoryImpl implements OrderRepositoryCustom {
                         .and(order.orderedAt.between(startDateTime, endDateTime)))
                 .fetchOne();
     }
+
+    // 아직 반환하지 않은 주문일 때만 표시한다. 동시에 호출되어도 한 쪽만 true 를 받는다.
+    @Override
+    public boolean markStockReleased(long orderId) {
+        long updated = queryFactory
+                .update(order)
+                .set(order.stockReleased, true)
+                .where(order.id.eq(orderId), order.stockReleased.isFalse())
+                .execute();
+
+        return updated == 1;
+    }
+
+    private BooleanExpression afterPosition(LocalDateTime afterOrderedAt, long afterId) {
+        if (afterOrderedAt == null) {
+            return null;
+        }
+        return order.orderedAt.gt(afterOrderedAt)
+                .or(order.orderedAt.eq(afterOrderedAt).and(order.id.gt(afterId)));
+    }
 }
@@ -1,15 +1,18 @@
 package flab.commercemarket.domain.order.vo;
 
+import flab.commercemarket.common.id.PooledIdGenerator;
 import flab.commercemarket.controller.order.dto.OrderGetResponseDto;
 import flab.commercemarket.controller.order.dto.OrderResponseDto;
 import flab.commercemarket.domain.user.vo.User;
 import lombok.*;
 import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Entity(name = "MARKET_ORDER")
@@ -20,7 +23,8 @@ import java.util.stream.Collectors;
 @Table(indexes = @Index(name = "idx_ordered_at", columnList = "ordered_at"))
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_id")
+    @GenericGenerator(name = "order_id", strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -40,6 +44,9 @@ public class Order {
     @Column(unique = true)
     private String merchantUid;
 
+    // 재고 예약을 반환했는지. 삭제와 결제 실패가 겹쳐도 한 번만 반환한다.
+    private boolean stockReleased;
+
     public OrderResponseDto toOrderResponseDto() {
         return OrderResponseDto.builder()
                 .id(id)
@@ -65,4 +72,10 @@ public class Order {
     public long getUserId() {
         return user.getId();
     }
+
+    // 같은 상품이 여러 줄로 들어와도 합쳐서 productId -> 수량으로 만든다.
+    public Map<Long, Integer> getProductQuantities() {
+        return orderProduct.stream()
+                .collect(Collectors.toMap(OrderProduct::getProductId, OrderProduct::getQuantity, Integer::sum));
+    }
 }
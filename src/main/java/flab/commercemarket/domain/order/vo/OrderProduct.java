@@ -1,8 +1,10 @@
 package flab.commercemarket.domain.order.vo;
 
+import flab.commercemarket.common.id.PooledIdGenerator;
 import flab.commercemarket.controller.order.dto.OrderProductDto;
 import flab.commercemarket.domain.product.vo.Product;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
@@ -17,7 +19,8 @@ import javax.persistence.*;
 })
 public class OrderProduct {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_product_id")
+    @GenericGenerator(name = "order_product_id", strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,6 +29,10 @@ public class OrderProduct {
 
     private int quantity;
 
+    public long getProductId() {
+        return product.getId();
+    }
+
     public OrderProductDto toOrderProductDto() {
         return OrderProductDto.builder()
                 .id(id)
@@ -3,8 +3,12 @@ package flab.commercemarket.domain.payment;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import flab.commercemarket.common.count.GlobalCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
 import flab.commercemarket.common.exception.PaymentMismatchException;
+import flab.commercemarket.common.pagination.Cursor;
+import flab.commercemarket.common.pagination.OffsetPageRequest;
+import flab.commercemarket.common.pagination.Slices;
 import flab.commercemarket.controller.payment.dto.PaymentCancelRequestDto;
 import flab.commercemarket.controller.payment.dto.PaymentResponseDataDto;
 import flab.commercemarket.controller.payment.dto.PaymentResponseDataResponseDto;
@@ -22,6 +26,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -57,6 +62,7 @@ public class PaymentService {
     private final OrderService orderService;
     private final UserService userService;
     private final PaymentRepository paymentRepository;
+    private final GlobalCountCache globalCountCache;
 
     // 주문 발생시 비동기 처리
     @Transactional
@@ -86,6 +92,12 @@ public class PaymentService {
 
         Order order = orderService.getOrder(payment.getOrderId()); // 1차 캐시 활용
 
+        // 결제에 실패한 주문은 취소할 결제가 없으므로 금액을 확인하지 않고 재고 예약만 반환한다.
+        if (payment.getStatus() == PaymentStatus.FAILED) {
+            orderService.releaseStock(order);
+            return paymentRepository.save(payment);
+        }
+
         int paidPrice = paymentResponse.getAmount().intValue();
         int orderPrice = order.getOrderPrice().intValue();
         log.info("주문 예정 금액: {}", orderPrice);
@@ -114,9 +126,19 @@ public class PaymentService {
         return paymentRepository.findPayments(pageable);
     }
 
+    public Slice<Payment> getPaymentSlice(int page, int size) {
+        List<Payment> payments = paymentRepository.findPayments(OffsetPageRequest.forSlice(page, size));
+        return Slices.of(payments, page, size);
+    }
+
+    public Slice<Payment> getPaymentsAfter(String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        return Slices.of(paymentRepository.findPaymentsAfter(cursor.getId(), size + 1), 1, size);
+    }
+
     public long countPayments() {
         log.info("count payments.");
-        return paymentRepository.countPayments();
+        return globalCountCache.get("payment", paymentRepository::countPayments);
     }
 
     private void savePreValidationDataToDB(String merchantUid, BigDecimal amount) {
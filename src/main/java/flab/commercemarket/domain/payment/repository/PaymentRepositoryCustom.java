@@ -8,5 +8,6 @@ import java.util.List;
 public interface PaymentRepositoryCustom {
 
     List<Payment> findPayments(Pageable pageable);
+    List<Payment> findPaymentsAfter(long afterId, int limit);
     long countPayments();
 }
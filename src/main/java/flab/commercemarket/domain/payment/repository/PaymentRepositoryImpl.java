@@ -27,10 +27,23 @@ public class PaymentRepositoryImpl implements PaymentRepositoryCustom {
                 .fetch();
     }
 
+    @Override
+    public List<Payment> findPaymentsAfter(long afterId, int limit) {
+        return queryFactory
+                .selectFrom(payment)
+                .where(payment.id.gt(afterId))
+                .orderBy(payment.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
     @Override
     public long countPayments() {
-        return queryFactory.selectFrom(payment)
-                .stream()
-                .count();
+        Long totalCount = queryFactory
+                .select(payment.count())
+                .from(payment)
+                .fetchOne();
+
+        return totalCount != null ? totalCount : 0L;
     }
 }
@@ -1,9 +1,11 @@
 package flab.commercemarket.domain.payment.vo;
 
+import flab.commercemarket.common.id.PooledIdGenerator;
 import flab.commercemarket.controller.payment.dto.PaymentResponseDto;
 import flab.commercemarket.domain.order.vo.Order;
 import flab.commercemarket.domain.user.vo.User;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -16,7 +18,8 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Payment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "payment_id")
+    @GenericGenerator(name = "payment_id", strategy = PooledIdGenerator.STRATEGY)
     private Long id;
     private String impUid;
     private String merchantUid;
@@ -1,22 +1,50 @@
 package flab.commercemarket.domain.product;
 
+import flab.commercemarket.common.count.GlobalCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
 import flab.commercemarket.common.exception.ForbiddenException;
+import flab.commercemarket.common.pagination.Cursor;
+import flab.commercemarket.common.pagination.OffsetPageRequest;
+import flab.commercemarket.common.pagination.Slices;
 import flab.commercemarket.controller.product.dto.ProductDto;
+import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.domain.cart.cache.CartTotalCache;
+import flab.commercemarket.domain.product.cache.ProductCache;
+import flab.commercemarket.controller.product.dto.LikeResponseDto;
+import flab.commercemarket.domain.product.like.ProductLikeCounter;
+import flab.commercemarket.domain.product.like.ProductLikeRegistry;
 import flab.commercemarket.domain.product.repository.ProductRepository;
+import flab.commercemarket.domain.product.search.ProductNgramIndex;
+import flab.commercemarket.domain.product.search.ProductPrefixIndex;
+import flab.commercemarket.domain.product.search.ProductSuggestIndex;
 import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.product.vo.ProductSnapshot;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.User;
+import flab.commercemarket.domain.wishlist.notification.PriceDropNotifier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -26,6 +54,15 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final ProductCache productCache;
+    private final ProductLikeCounter productLikeCounter;
+    private final ProductLikeRegistry productLikeRegistry;
+    private final ProductPrefixIndex productPrefixIndex;
+    private final ProductNgramIndex productNgramIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final GlobalCountCache globalCountCache;
+    private final PriceDropNotifier priceDropNotifier;
+    private final CartTotalCache cartTotalCache;
 
     @Transactional
     public Product registerProduct(String email, ProductDto productDto) {
@@ -36,87 +73,269 @@ public class ProductService {
                 .name(productDto.getName())
                 .imageUrl(productDto.getImageUrl())
                 .description(productDto.getDescription())
+                .stock(productDto.getStock())
                 .seller(foundUser)
                 .build();
 
-        productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        // 커밋 이후 모든 노드에 변경 이벤트가 전파되어 검색 색인에 반영된다.
+        productCache.evict(savedProduct.getId());
 
-        log.info("Create Product. {}", product);
-        return product;
+        log.info("Create Product. {}", savedProduct);
+        return savedProduct;
     }
 
     @Transactional
     public Product updateProduct(String email, long productId, ProductDto data) {
         log.info("Start updateProduct");
 
-        Product foundProduct = getProductById(productId);
+        Product foundProduct = findProductById(productId);
         User foundUser = userService.getUserByEmail(email);
 
         checkUserAuthorization(foundProduct.getSeller().getId(), foundUser.getId());
+        int previousPrice = foundProduct.getPrice();
         foundProduct.setName(data.getName());
         foundProduct.setPrice(data.getPrice());
         foundProduct.setImageUrl(data.getImageUrl());
         foundProduct.setDescription(data.getDescription());
+        productCache.evict(productId);
+
+        // 가격 인하 여부는 모아둔 변경을 처리할 때 판단하므로 오른 가격도 넘긴다.
+        if (previousPrice != data.getPrice()) {
+            priceDropNotifier.priceChanged(productId, previousPrice, data.getPrice());
+            cartTotalCache.priceChanged(productId);
+        }
 
         log.info("Update Product. productId = {}", productId);
         return foundProduct;
     }
 
+    // 캐시 적중 여부와 관계없이 영속성 컨텍스트와 분리된 인스턴스를 반환한다. 변경이 필요하면 findProductById 를 사용한다.
     @Transactional(readOnly = true)
     public Product getProductById(long productId) {
         log.info("Start get ProductId: {}", productId);
 
-        Optional<Product> optionalProduct = productRepository.findById(productId);
-        return optionalProduct.orElseThrow(() -> {
-            log.info("productId = {}", productId);
-            return new DataNotFoundException("조회한 상품 정보가 없음");
-        });
+        Optional<Product> cachedProduct = productCache.get(productId);
+        if (cachedProduct.isPresent()) {
+            return applyPendingLikes(cachedProduct.get());
+        }
+
+        Product foundProduct = findProductById(productId);
+        productCache.put(foundProduct);
+        return applyPendingLikes(ProductSnapshot.from(foundProduct).toProduct());
+    }
+
+    // 캐시 multi-get 과 IN 쿼리 한 번으로 여러 상품을 조회한다. 없는 상품이 하나라도 있으면 예외를 던진다.
+    @Transactional(readOnly = true)
+    public Map<Long, Product> getProductsByIds(Collection<Long> productIds) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        Map<Long, Product> products = findProductsByIds(uniqueIds);
+        if (products.size() != uniqueIds.size()) {
+            log.info("productIds = {}, found = {}", uniqueIds, products.keySet());
+            throw new DataNotFoundException("조회한 상품 정보가 없음");
+        }
+        return products;
+    }
+
+    // getProductsByIds 와 같지만 없는 상품은 결과에서 빠진다.
+    @Transactional(readOnly = true)
+    public Map<Long, Product> findProductsByIds(Collection<Long> productIds) {
+        Set<Long> uniqueIds = new LinkedHashSet<>(productIds);
+        if (uniqueIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Product> products = new HashMap<>(productCache.getAll(uniqueIds));
+        List<Long> missingIds = uniqueIds.stream()
+                .filter(productId -> !products.containsKey(productId))
+                .collect(Collectors.toList());
+
+        if (!missingIds.isEmpty()) {
+            List<Product> foundProducts = productRepository.findAllById(missingIds);
+            productCache.putAll(foundProducts);
+            foundProducts.forEach(product -> products.put(product.getId(), ProductSnapshot.from(product).toProduct()));
+        }
+
+        products.values().forEach(this::applyPendingLikes);
+        return products;
     }
 
+    // 목록과 검색은 응답 DTO 로 바로 조회해서 엔티티(와 seller)를 영속성 컨텍스트에 올리지 않는다.
     @Transactional(readOnly = true)
-    public Page<Product> findProducts(int page, int size) {
+    public Page<ProductResponseDto> findProducts(int page, int size) {
         log.info("Find All Product. page = {}, size = {}", page, size);
 
         Pageable pageable = PageRequest.of(page - 1, size);
+        List<ProductResponseDto> products = productRepository.findProductResponses(pageable);
 
-        return productRepository.findAll(pageable);
+        return PageableExecutionUtils.getPage(products, pageable, this::countProducts);
     }
 
     @Transactional(readOnly = true)
-    public List<Product> searchProduct(String keyword, int page, int size) {
+    public Slice<ProductResponseDto> findProductSlice(int page, int size) {
+        log.info("Find All Product without count. page = {}, size = {}", page, size);
+
+        return Slices.of(productRepository.findProductResponses(OffsetPageRequest.forSlice(page, size)), page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public long countProducts() {
+        return globalCountCache.get("product", productRepository::count);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProductResponseDto> findProductsAfter(String after, int size) {
+        Cursor cursor = Cursor.decode(after);
+        log.info("Find All Product after cursor. afterId = {}, size = {}", cursor.getId(), size);
+
+        return Slices.of(productRepository.findAllAfter(cursor.getId(), size + 1), 1, size);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ProductResponseDto> searchProduct(String keyword, int page, int size) {
         log.info("Start searchProduct with keyword. keyword = {}", keyword);
 
-        Pageable pageable = PageRequest.of(page - 1, size);
+        return searchProduct(keyword, PageRequest.of(page - 1, size));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProductResponseDto> searchProductSlice(String keyword, int page, int size) {
+        log.info("Start searchProduct without count. keyword = {}", keyword);
+
+        return Slices.of(searchProduct(keyword, OffsetPageRequest.forSlice(page, size)), page, size);
+    }
+
+    private List<ProductResponseDto> searchProduct(String keyword, Pageable pageable) {
+        if (productPrefixIndex.isReady()) {
+            List<Long> productIds = productPrefixIndex.search(keyword, pageable.getOffset(), pageable.getPageSize());
+            return findProductsInOrder(productIds);
+        }
 
         return productRepository.findByKeyword(keyword, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Page<ProductResponseDto> searchProductByInfix(String keyword, int page, int size) {
+        log.info("Start searchProductByInfix. keyword = {}", keyword);
+
+        Pageable pageable = PageRequest.of(page - 1, size);
+
+        if (productNgramIndex.isReady()) {
+            ProductNgramIndex.SearchResult result = productNgramIndex.search(keyword, pageable.getOffset(), pageable.getPageSize());
+            return new PageImpl<>(findProductsInOrder(result.getProductIds()), pageable, result.getTotalElements());
+        }
+
+        List<ProductResponseDto> products = productRepository.findByContainingKeyword(keyword, pageable);
+        return new PageImpl<>(products, pageable, productRepository.countByContainingKeyword(keyword));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ProductResponseDto> searchProductSliceByInfix(String keyword, int page, int size) {
+        log.info("Start searchProductByInfix without count. keyword = {}", keyword);
+
+        Pageable pageable = OffsetPageRequest.forSlice(page, size);
+        List<ProductResponseDto> products;
+
+        if (productNgramIndex.isReady()) {
+            ProductNgramIndex.SearchResult result = productNgramIndex.search(keyword, pageable.getOffset(), pageable.getPageSize());
+            products = findProductsInOrder(result.getProductIds());
+        } else {
+            products = productRepository.findByContainingKeyword(keyword, pageable);
+        }
+
+        return Slices.of(products, page, size);
+    }
+
     @Transactional(readOnly = true)
     public long countSearchProductByKeyword(String keyword) {
         log.info("Start countSearchProductByKeyword. keyword = {}", keyword);
+
+        if (productPrefixIndex.isReady()) {
+            return productPrefixIndex.count(keyword);
+        }
+
         return productRepository.countSearchProductByKeyword(keyword);
     }
 
+    // 자동완성은 요청마다 DB 를 조회하지 않는다. 색인이 준비되기 전에는 빈 목록을 반환한다.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<ProductSuggestIndex.Suggestion> suggestProducts(String prefix, int size) {
+        if (!productSuggestIndex.isReady()) {
+            return Collections.emptyList();
+        }
+        return productSuggestIndex.suggest(prefix, size);
+    }
+
     @Transactional
     public void deleteProduct(long productId, String email) {
-        Product foundProduct = getProductById(productId);
+        Product foundProduct = findProductById(productId);
         User foundUser = userService.getUserByEmail(email);
 
         checkUserAuthorization(foundProduct.getSeller().getId(), foundUser.getId());
 
         productRepository.delete(foundProduct);
+        productCache.evict(productId);
         log.info("Delete Product. ProductId = {}", productId);
     }
 
-    @Transactional
-    public void updateLikeCount(long productId) {
+    // 사용자당 한 번만 반영된다. 좋아요 수는 메모리에 누적하고 ProductLikeCounter 가 주기적으로 DB 에 반영한다.
+    @Transactional(readOnly = true)
+    public void updateLikeCount(long productId, String email) {
         log.info("Start increaseLikeCount");
-        Product foundProduct = getProductById(productId);
+        getProductById(productId);
+        User foundUser = userService.getUserByEmail(email);
+
+        if (!productLikeRegistry.register(productId, foundUser.getId())) {
+            log.info("Already liked. productId = {}, userId = {}", productId, foundUser.getId());
+            return;
+        }
+
+        productLikeCounter.increase(productId);
+    }
+
+    // 좋아요 수는 상품 응답과 같이 DB 의 값에 반영 대기 중인 좋아요를 더한 값이다. 비트맵은 누른 여부만 확인한다.
+    @Transactional(readOnly = true)
+    public LikeResponseDto getLike(long productId, String email) {
+        User foundUser = userService.getUserByEmail(email);
+        Product product = getProductById(productId);
+
+        return LikeResponseDto.builder()
+                .productId(productId)
+                .liked(productLikeRegistry.isLiked(productId, foundUser.getId()))
+                .likeCount(product.getLikeCount())
+                .build();
+    }
+
+    // DB 에 아직 반영되지 않은 좋아요 수를 더한다. 분리된 인스턴스에만 적용해야 dirty checking 으로 반영되지 않는다.
+    private Product applyPendingLikes(Product product) {
+        long pendingLikes = productLikeCounter.pending(product.getId());
+        if (pendingLikes != 0) {
+            product.setLikeCount(product.getLikeCount() + (int) pendingLikes);
+        }
+        return product;
+    }
+
+    // IN 쿼리 한 번으로 조회하고 색인이 정한 순서대로 정렬한다.
+    private List<ProductResponseDto> findProductsInOrder(List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, ProductResponseDto> productById = productRepository.findProductResponsesByIds(productIds).stream()
+                .collect(Collectors.toMap(ProductResponseDto::getId, Function.identity()));
 
-        int likeCount = foundProduct.getLikeCount();
-        int newLikeCount = likeCount + 1;
+        return productIds.stream()
+                .map(productById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
 
-        foundProduct.setLikeCount(newLikeCount);
+    private Product findProductById(long productId) {
+        Optional<Product> optionalProduct = productRepository.findById(productId);
+        return optionalProduct.orElseThrow(() -> {
+            log.info("productId = {}", productId);
+            return new DataNotFoundException("조회한 상품 정보가 없음");
+        });
     }
 
     private void checkUserAuthorization(long ownerUserId, long loginUserId) {
@@ -0,0 +1,210 @@
+package flab.commercemarket.domain.product.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import flab.commercemarket.domain.product.event.ProductChangedEvent;
+import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.product.vo.ProductSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+// 노드 내부 near cache(Caffeine) -> Redis -> DB 순서로 조회하는 2단 상품 캐시
+@Slf4j
+@Component
+public class ProductCache {
+
+    private static final String KEY_PREFIX = "product:";
+
+    @Value("${cache.product.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, ProductSnapshot> nearCache;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public ProductCache(RedisTemplate<String, Object> redisTemplate,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${cache.product.near.maximum-size:5000}") long nearMaximumSize,
+                        @Value("${cache.product.near.ttl-seconds:30}") long nearTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        // 무효화 메시지가 유실되더라도 TTL 이 지나면 stale 데이터가 사라진다.
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(nearTtlSeconds))
+                .recordStats()
+                .build();
+        this.hitCounter = Counter.builder("cache.product.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("cache.product.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "product.near");
+    }
+
+    public Optional<Product> get(long productId) {
+        ProductSnapshot nearSnapshot = nearCache.getIfPresent(productId);
+        if (nearSnapshot != null) {
+            hitCounter.increment();
+            return Optional.of(nearSnapshot.toProduct());
+        }
+
+        try {
+            Object value = redisTemplate.opsForValue().get(key(productId));
+            if (value == null) {
+                missCounter.increment();
+                return Optional.empty();
+            }
+
+            hitCounter.increment();
+            ProductSnapshot snapshot = objectMapper.readValue((String) value, ProductSnapshot.class);
+            nearCache.put(productId, snapshot);
+            return Optional.of(snapshot.toProduct());
+        } catch (DataAccessException | JsonProcessingException e) {
+            // 캐시 장애가 상품 조회 실패로 이어지지 않도록 DB 조회로 넘긴다.
+            log.warn("Fail to read product cache. productId = {}", productId, e);
+            missCounter.increment();
+            return Optional.empty();
+        }
+    }
+
+    // near cache 에 없는 상품만 Redis MGET 한 번으로 조회한다. 캐시에 없는 id 는 결과에 포함되지 않는다.
+    public Map<Long, Product> getAll(Collection<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>();
+        List<Long> remoteIds = new ArrayList<>();
+
+        Map<Long, ProductSnapshot> nearSnapshots = nearCache.getAllPresent(productIds);
+        for (Long productId : productIds) {
+            ProductSnapshot nearSnapshot = nearSnapshots.get(productId);
+            if (nearSnapshot != null) {
+                products.put(productId, nearSnapshot.toProduct());
+            } else {
+                remoteIds.add(productId);
+            }
+        }
+        hitCounter.increment(products.size());
+
+        if (remoteIds.isEmpty()) {
+            return products;
+        }
+
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(remoteIds.stream().map(this::key).collect(Collectors.toList()));
+            for (int i = 0; i < remoteIds.size(); i++) {
+                Object value = values != null ? values.get(i) : null;
+                if (value == null) {
+                    continue;
+                }
+
+                ProductSnapshot snapshot = objectMapper.readValue((String) value, ProductSnapshot.class);
+                nearCache.put(remoteIds.get(i), snapshot);
+                products.put(remoteIds.get(i), snapshot.toProduct());
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Fail to read product cache. productIds = {}", remoteIds, e);
+        }
+
+        int remoteHits = products.size() - nearSnapshots.size();
+        hitCounter.increment(remoteHits);
+        missCounter.increment(remoteIds.size() - remoteHits);
+        return products;
+    }
+
+    public void put(Product product) {
+        ProductSnapshot snapshot = ProductSnapshot.from(product);
+        nearCache.put(product.getId(), snapshot);
+
+        try {
+            String value = objectMapper.writeValueAsString(snapshot);
+            redisTemplate.opsForValue().set(key(product.getId()), value, Duration.ofSeconds(ttlSeconds));
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Fail to write product cache. productId = {}", product.getId(), e);
+        }
+    }
+
+    // 여러 상품을 pipeline 한 번으로 저장한다.
+    public void putAll(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<byte[], byte[]> values = new LinkedHashMap<>();
+            for (Product product : products) {
+                ProductSnapshot snapshot = ProductSnapshot.from(product);
+                nearCache.put(product.getId(), snapshot);
+                values.put(key(product.getId()).getBytes(StandardCharsets.UTF_8),
+                        objectMapper.writeValueAsBytes(snapshot));
+            }
+
+            Expiration expiration = Expiration.seconds(ttlSeconds);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                values.forEach((key, value) -> connection.stringCommands()
+                        .set(key, value, expiration, RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.warn("Fail to write product cache. size = {}", products.size(), e);
+        }
+    }
+
+    // 트랜잭션 안에서 호출되면 커밋 이후에 삭제해서, 커밋 전 값이 다시 캐시에 올라가는 것을 막는다.
+    public void evict(long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delete(productId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delete(productId);
+            }
+        });
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        nearCache.invalidate(event.getProductId());
+    }
+
+    private void delete(long productId) {
+        nearCache.invalidate(productId);
+
+        try {
+            redisTemplate.delete(key(productId));
+            // 다른 노드의 near cache 도 비우도록 변경 메시지를 발행한다.
+            redisTemplate.convertAndSend(ProductChangeListener.TOPIC, String.valueOf(productId));
+            log.info("Evict product cache. productId = {}", productId);
+        } catch (DataAccessException e) {
+            log.warn("Fail to evict product cache. productId = {}", productId, e);
+        }
+    }
+
+    private String key(long productId) {
+        return KEY_PREFIX + productId;
+    }
+}
@@ -0,0 +1,39 @@
+package flab.commercemarket.domain.product.cache;
+
+import flab.commercemarket.domain.product.event.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+// Redis pub/sub 으로 전달된 상품 변경 메시지를 노드 내부 이벤트로 바꿔 발행한다.
+@Slf4j
+@Component
+public class ProductChangeListener implements MessageListener {
+
+    public static final String TOPIC = "product:changed";
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductChangeListener(RedisMessageListenerContainer listenerContainer, ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+        listenerContainer.addMessageListener(this, new ChannelTopic(TOPIC));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+
+        try {
+            long productId = Long.parseLong(body);
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid product change message. body = {}", body);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package flab.commercemarket.domain.product.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+// 어느 노드에서든 상품이 변경되면 모든 노드에 발행되는 이벤트
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class ProductChangedEvent {
+    private final long productId;
+}
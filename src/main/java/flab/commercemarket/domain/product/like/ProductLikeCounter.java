@@ -0,0 +1,58 @@
+package flab.commercemarket.domain.product.like;
+
+import flab.commercemarket.common.counter.PendingDeltaCounter;
+import flab.commercemarket.domain.product.cache.ProductCache;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+
+// 좋아요 수를 메모리에 모아두었다가 주기적으로 한 번에 DB 에 반영한다. (write-behind)
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductLikeCounter {
+
+    private final PendingDeltaCounter pendingLikes = new PendingDeltaCounter();
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final ProductCache productCache;
+
+    public void increase(long productId) {
+        pendingLikes.add(productId, 1);
+    }
+
+    public long pending(long productId) {
+        return pendingLikes.pending(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${product.like.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Long, Long> deltas = pendingLikes.snapshot();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            productJdbcRepository.increaseLikeCounts(deltas);
+        } catch (DataAccessException e) {
+            // 반영에 실패한 변화량은 남겨두고 다음 주기에 다시 시도한다.
+            log.warn("Fail to flush like counts. size = {}", deltas.size(), e);
+            return;
+        }
+
+        pendingLikes.markFlushed(deltas);
+        deltas.keySet().forEach(productCache::evict);
+        log.info("Flush like counts. size = {}", deltas.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
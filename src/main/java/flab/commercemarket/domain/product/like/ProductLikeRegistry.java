@@ -0,0 +1,30 @@
+package flab.commercemarket.domain.product.like;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+// 상품별 좋아요 누른 사용자를 Redis 비트맵(offset = userId)으로 관리한다.
+@Component
+@RequiredArgsConstructor
+public class ProductLikeRegistry {
+
+    private static final String KEY_PREFIX = "product:likes:";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    // 처음 누른 좋아요일 때만 true 를 반환한다.
+    public boolean register(long productId, long userId) {
+        Boolean alreadyLiked = redisTemplate.opsForValue().setBit(key(productId), userId, true);
+        return !Boolean.TRUE.equals(alreadyLiked);
+    }
+
+    public boolean isLiked(long productId, long userId) {
+        Boolean liked = redisTemplate.opsForValue().getBit(key(productId), userId);
+        return Boolean.TRUE.equals(liked);
+    }
+
+    private String key(long productId) {
+        return KEY_PREFIX + productId;
+    }
+}
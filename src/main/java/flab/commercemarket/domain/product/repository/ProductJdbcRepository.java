@@ -0,0 +1,102 @@
+package flab.commercemarket.domain.product.repository;
+
+import flab.commercemarket.domain.stock.StockDeltaBatch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 엔티티를 읽지 않고 컬럼을 증감시키는 배치 쿼리. @Version 을 올리지 않아 낙관적 락 충돌이 생기지 않는다.
+@Repository
+@RequiredArgsConstructor
+public class ProductJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void increaseLikeCounts(Map<Long, Long> deltas) {
+        List<Map.Entry<Long, Long>> batchArgs = new ArrayList<>(deltas.entrySet());
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE product SET like_count = like_count + ? WHERE id = ?",
+                batchArgs,
+                BATCH_SIZE,
+                (ps, delta) -> {
+                    ps.setLong(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+    }
+
+    // 재고를 관리하지 않는 상품(stock IS NULL)은 그대로 둔다.
+    @Transactional
+    public void increaseStocks(Map<Long, Long> deltas) {
+        List<Map.Entry<Long, Long>> batchArgs = new ArrayList<>(deltas.entrySet());
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE product SET stock = stock + ? WHERE id = ? AND stock IS NOT NULL",
+                batchArgs,
+                BATCH_SIZE,
+                (ps, delta) -> {
+                    ps.setLong(1, delta.getValue());
+                    ps.setLong(2, delta.getKey());
+                });
+    }
+
+    // 같은 batchId 는 한 번만 반영한다. 이미 반영한 묶음이면 false
+    @Transactional
+    public boolean increaseStocksOnce(String batchId, Map<Long, Long> deltas) {
+        try {
+            jdbcTemplate.update("INSERT INTO " + StockDeltaBatch.TABLE + " (batch_id, applied_at) VALUES (?, ?)",
+                    batchId, Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+
+        increaseStocks(deltas);
+        return true;
+    }
+
+    public int deleteStockDeltaBatchesBefore(LocalDateTime appliedAt) {
+        return jdbcTemplate.update("DELETE FROM " + StockDeltaBatch.TABLE + " WHERE applied_at < ?",
+                Timestamp.valueOf(appliedAt));
+    }
+
+    // 재고가 충분할 때만 차감한다. 재고를 관리하지 않는 상품은 그대로 두고 차감한 것으로 본다.
+    // 차감한 행은 트랜잭션이 끝날 때까지 잠긴다.
+    public boolean decreaseStock(long productId, int quantity) {
+        int updated = jdbcTemplate.update(
+                "UPDATE product SET stock = stock - ? WHERE id = ? AND (stock IS NULL OR stock >= ?)",
+                quantity, productId, quantity);
+        return updated == 1;
+    }
+
+    // 재고를 관리하지 않는 상품은 값이 null 이고, 없는 상품은 결과에 포함되지 않는다.
+    public Map<Long, Integer> findStocks(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, Integer> stocks = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT id, stock FROM product WHERE id IN (" + placeholders + ")",
+                rs -> {
+                    int stock = rs.getInt("stock");
+                    stocks.put(rs.getLong("id"), rs.wasNull() ? null : stock);
+                },
+                productIds.toArray());
+        return stocks;
+    }
+}
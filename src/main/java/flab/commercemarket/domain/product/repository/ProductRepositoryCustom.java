@@ -1,12 +1,22 @@
 package flab.commercemarket.domain.product.repository;
 
-import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductRepositoryCustom {
 
-    List<Product> findByKeyword(String keyword, Pageable pageable);
+    List<ProductResponseDto> findProductResponses(Pageable pageable);
+    List<ProductResponseDto> findProductResponsesByIds(Collection<Long> productIds);
+    List<ProductResponseDto> findByKeyword(String keyword, Pageable pageable);
+    List<ProductResponseDto> findAllAfter(long afterId, int limit);
     long countSearchProductByKeyword(String keyword);
+    List<ProductResponseDto> findByContainingKeyword(String keyword, Pageable pageable);
+    long countByContainingKeyword(String keyword);
+    List<ProductSearchDocument> findSearchDocuments(long afterId, int limit);
+    Optional<ProductSearchDocument> findSearchDocument(long productId);
 }
@@ -1,12 +1,19 @@
 package flab.commercemarket.domain.product.repository;
 
+import com.querydsl.core.types.ConstructorExpression;
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.QBean;
+import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
 import flab.commercemarket.domain.product.vo.QProduct;
 import org.springframework.data.domain.Pageable;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public class ProductRepositoryImpl implements ProductRepositoryCustom {
 
@@ -17,9 +24,29 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
     }
 
     @Override
-    public List<Product> findByKeyword(String keyword, Pageable pageable) {
+    public List<ProductResponseDto> findProductResponses(Pageable pageable) {
         return queryFactory
-                .selectFrom(QProduct.product)
+                .select(productResponse())
+                .from(QProduct.product)
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    @Override
+    public List<ProductResponseDto> findProductResponsesByIds(Collection<Long> productIds) {
+        return queryFactory
+                .select(productResponse())
+                .from(QProduct.product)
+                .where(QProduct.product.id.in(productIds))
+                .fetch();
+    }
+
+    @Override
+    public List<ProductResponseDto> findByKeyword(String keyword, Pageable pageable) {
+        return queryFactory
+                .select(productResponse())
+                .from(QProduct.product)
                 .where(QProduct.product.name.like(keyword + "%"))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
@@ -27,11 +54,100 @@ public class ProductRepositoryImpl implements ProductRepositoryCustom {
     }
 
     @Override
-    public long countSearchProductByKeyword(String keyword) {
+    public List<ProductResponseDto> findAllAfter(long afterId, int limit) {
         return queryFactory
-                .selectFrom(QProduct.product)
+                .select(productResponse())
+                .from(QProduct.product)
+                .where(QProduct.product.id.gt(afterId))
+                .orderBy(QProduct.product.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    @Override
+    public long countSearchProductByKeyword(String keyword) {
+        Long totalCount = queryFactory
+                .select(QProduct.product.count())
+                .from(QProduct.product)
                 .where(QProduct.product.name.like(keyword + "%"))
-                .stream()
-                .count();
+                .fetchOne();
+
+        return totalCount != null ? totalCount : 0L;
+    }
+
+    // 색인이 준비되기 전에만 사용하는 전체 스캔 쿼리
+    @Override
+    public List<ProductResponseDto> findByContainingKeyword(String keyword, Pageable pageable) {
+        return queryFactory
+                .select(productResponse())
+                .from(QProduct.product)
+                .where(containsKeyword(keyword))
+                .orderBy(QProduct.product.likeCount.desc(), QProduct.product.id.asc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch();
+    }
+
+    @Override
+    public long countByContainingKeyword(String keyword) {
+        Long totalCount = queryFactory
+                .select(QProduct.product.count())
+                .from(QProduct.product)
+                .where(containsKeyword(keyword))
+                .fetchOne();
+
+        return totalCount != null ? totalCount : 0L;
+    }
+
+    @Override
+    public List<ProductSearchDocument> findSearchDocuments(long afterId, int limit) {
+        return queryFactory
+                .select(searchDocument())
+                .from(QProduct.product)
+                .where(QProduct.product.id.gt(afterId))
+                .orderBy(QProduct.product.id.asc())
+                .limit(limit)
+                .fetch();
+    }
+
+    @Override
+    public Optional<ProductSearchDocument> findSearchDocument(long productId) {
+        ProductSearchDocument document = queryFactory
+                .select(searchDocument())
+                .from(QProduct.product)
+                .where(QProduct.product.id.eq(productId))
+                .fetchOne();
+
+        return Optional.ofNullable(document);
+    }
+
+    private BooleanExpression containsKeyword(String keyword) {
+        BooleanExpression whereClause = null;
+        for (String term : keyword.trim().split("\\s+")) {
+            BooleanExpression termClause = QProduct.product.name.containsIgnoreCase(term)
+                    .or(QProduct.product.description.containsIgnoreCase(term));
+            whereClause = whereClause == null ? termClause : whereClause.and(termClause);
+        }
+        return whereClause;
+    }
+
+    // 목록 응답에 필요한 컬럼만 조회한다. seller.id 는 FK 컬럼(seller_id)을 그대로 읽으므로 user 를 조인하지 않는다.
+    private QBean<ProductResponseDto> productResponse() {
+        return Projections.fields(ProductResponseDto.class,
+                QProduct.product.id,
+                QProduct.product.name,
+                QProduct.product.price,
+                QProduct.product.imageUrl,
+                QProduct.product.description,
+                QProduct.product.likeCount,
+                QProduct.product.seller.id.as("sellerId"));
+    }
+
+    private ConstructorExpression<ProductSearchDocument> searchDocument() {
+        return Projections.constructor(ProductSearchDocument.class,
+                QProduct.product.id,
+                QProduct.product.name,
+                QProduct.product.description,
+                QProduct.product.likeCount);
     }
 }
@@ -0,0 +1,253 @@
+package flab.commercemarket.domain.product.search;
+
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상품명과 설명의 글자 단위 1-gram, 2-gram 역색인. 한글처럼 띄어쓰기 없이 붙여 쓰는 검색어도 중간 일치로 찾을 수 있다.
+ * posting list 는 상품 id 를 정렬한 long 배열이고, 검색어의 n-gram posting 을 교집합한 뒤 원문 포함 여부로 거짓 양성을 걸러낸다.
+ * 결과는 좋아요 수 내림차순, 상품 id 오름차순으로 정렬한다.
+ */
+@Component
+public class ProductNgramIndex implements ProductSearchIndex {
+
+    private static final long[] EMPTY_POSTING = new long[0];
+
+    private final ConcurrentHashMap<String, long[]> postings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, String> textByDoc = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> likeCountByDoc = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public SearchResult search(String keyword, long offset, int limit) {
+        List<String> terms = terms(keyword);
+        if (terms.isEmpty()) {
+            return new SearchResult(Collections.emptyList(), 0);
+        }
+
+        long[] candidates = null;
+        for (String term : terms) {
+            for (String gram : queryGrams(term)) {
+                long[] posting = postings.getOrDefault(gram, EMPTY_POSTING);
+                candidates = candidates == null ? posting : intersect(candidates, posting);
+                if (candidates.length == 0) {
+                    return new SearchResult(Collections.emptyList(), 0);
+                }
+            }
+        }
+
+        List<Long> matched = new ArrayList<>();
+        for (long docId : candidates) {
+            String text = textByDoc.get(docId);
+            if (text != null && containsAll(text, terms)) {
+                matched.add(docId);
+            }
+        }
+
+        matched.sort(Comparator.comparingInt((Long docId) -> likeCountByDoc.getOrDefault(docId, 0)).reversed()
+                .thenComparingLong(docId -> docId));
+
+        int from = (int) Math.min(offset, matched.size());
+        int to = (int) Math.min((long) from + limit, matched.size());
+
+        return new SearchResult(new ArrayList<>(matched.subList(from, to)), matched.size());
+    }
+
+    // 변경 메서드는 ProductSearchIndexer 의 lock 안에서만 호출된다.
+    @Override
+    public void replaceAll(List<ProductSearchDocument> documents) {
+        Map<String, List<Long>> building = new HashMap<>();
+        postings.clear();
+        textByDoc.clear();
+        likeCountByDoc.clear();
+
+        for (ProductSearchDocument document : documents) {
+            long docId = document.getId();
+            String text = text(document);
+            textByDoc.put(docId, text);
+            likeCountByDoc.put(docId, document.getLikeCount());
+
+            for (String gram : documentGrams(text)) {
+                building.computeIfAbsent(gram, key -> new ArrayList<>()).add(docId);
+            }
+        }
+
+        building.forEach((gram, docIds) -> {
+            long[] posting = docIds.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(posting);
+            postings.put(gram, posting);
+        });
+        ready = true;
+    }
+
+    @Override
+    public void upsert(ProductSearchDocument document) {
+        long docId = document.getId();
+        String text = text(document);
+        likeCountByDoc.put(docId, document.getLikeCount());
+
+        String previousText = textByDoc.put(docId, text);
+        if (text.equals(previousText)) {
+            return;
+        }
+
+        Set<String> previousGrams = previousText != null ? documentGrams(previousText) : Collections.emptySet();
+        Set<String> grams = documentGrams(text);
+
+        for (String gram : previousGrams) {
+            if (!grams.contains(gram)) {
+                removeFromPosting(gram, docId);
+            }
+        }
+        for (String gram : grams) {
+            if (!previousGrams.contains(gram)) {
+                addToPosting(gram, docId);
+            }
+        }
+    }
+
+    @Override
+    public void remove(long productId) {
+        long docId = productId;
+        likeCountByDoc.remove(docId);
+
+        String previousText = textByDoc.remove(docId);
+        if (previousText == null) {
+            return;
+        }
+
+        for (String gram : documentGrams(previousText)) {
+            removeFromPosting(gram, docId);
+        }
+    }
+
+    private void addToPosting(String gram, long docId) {
+        long[] posting = postings.getOrDefault(gram, EMPTY_POSTING);
+        int position = Arrays.binarySearch(posting, docId);
+        if (position >= 0) {
+            return;
+        }
+
+        int insertAt = -position - 1;
+        long[] newPosting = new long[posting.length + 1];
+        System.arraycopy(posting, 0, newPosting, 0, insertAt);
+        newPosting[insertAt] = docId;
+        System.arraycopy(posting, insertAt, newPosting, insertAt + 1, posting.length - insertAt);
+        postings.put(gram, newPosting);
+    }
+
+    private void removeFromPosting(String gram, long docId) {
+        long[] posting = postings.get(gram);
+        if (posting == null) {
+            return;
+        }
+
+        int position = Arrays.binarySearch(posting, docId);
+        if (position < 0) {
+            return;
+        }
+
+        if (posting.length == 1) {
+            postings.remove(gram);
+            return;
+        }
+
+        long[] newPosting = new long[posting.length - 1];
+        System.arraycopy(posting, 0, newPosting, 0, position);
+        System.arraycopy(posting, position + 1, newPosting, position, posting.length - position - 1);
+        postings.put(gram, newPosting);
+    }
+
+    private static long[] intersect(long[] left, long[] right) {
+        long[] result = new long[Math.min(left.length, right.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                result[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static boolean containsAll(String text, List<String> terms) {
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(ProductSearchDocument document) {
+        return normalize(document.getName()) + " " + normalize(document.getDescription());
+    }
+
+    private static Set<String> documentGrams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            char current = text.charAt(i);
+            if (Character.isWhitespace(current)) {
+                continue;
+            }
+            grams.add(String.valueOf(current));
+
+            if (i + 1 < text.length() && !Character.isWhitespace(text.charAt(i + 1))) {
+                grams.add(text.substring(i, i + 2));
+            }
+        }
+        return grams;
+    }
+
+    // 한 글자 검색어는 1-gram, 그 외에는 2-gram 으로 찾는다.
+    private static List<String> queryGrams(String term) {
+        if (term.length() == 1) {
+            return Collections.singletonList(term);
+        }
+
+        List<String> grams = new ArrayList<>(term.length() - 1);
+        for (int i = 0; i + 1 < term.length(); i++) {
+            grams.add(term.substring(i, i + 2));
+        }
+        return grams;
+    }
+
+    private static List<String> terms(String keyword) {
+        List<String> terms = new ArrayList<>();
+        for (String term : normalize(keyword).split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SearchResult {
+        private final List<Long> productIds;
+        private final long totalElements;
+    }
+}
@@ -0,0 +1,162 @@
+package flab.commercemarket.domain.product.search;
+
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 정규화한 상품명을 정렬된 배열로 들고 있는 접두어 검색 색인.
+ * 접두어에 해당하는 구간을 이진 탐색으로 찾기 때문에 페이지 조회와 개수 조회 모두 O(log n) 이다.
+ * 읽기는 불변 스냅샷을 그대로 사용하고, 변경은 새 배열을 만들어 교체한다. (copy-on-write)
+ */
+@Component
+public class ProductPrefixIndex implements ProductSearchIndex {
+
+    private final Map<Long, String> nameById = new HashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean ready;
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<Long> search(String keyword, long offset, int limit) {
+        Snapshot current = snapshot;
+        int[] range = current.range(normalize(keyword));
+
+        int from = (int) Math.min(range[0] + offset, range[1]);
+        int to = (int) Math.min((long) from + limit, range[1]);
+
+        List<Long> productIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            productIds.add(current.ids[i]);
+        }
+        return productIds;
+    }
+
+    public long count(String keyword) {
+        int[] range = snapshot.range(normalize(keyword));
+        return range[1] - range[0];
+    }
+
+    // 변경 메서드는 ProductSearchIndexer 의 lock 안에서만 호출된다.
+    @Override
+    public void replaceAll(List<ProductSearchDocument> documents) {
+        List<ProductSearchDocument> sorted = new ArrayList<>(documents);
+        sorted.sort(Comparator.comparing((ProductSearchDocument document) -> normalize(document.getName()))
+                .thenComparingLong(ProductSearchDocument::getId));
+
+        String[] names = new String[sorted.size()];
+        long[] ids = new long[sorted.size()];
+        nameById.clear();
+        for (int i = 0; i < sorted.size(); i++) {
+            names[i] = normalize(sorted.get(i).getName());
+            ids[i] = sorted.get(i).getId();
+            nameById.put(ids[i], names[i]);
+        }
+
+        snapshot = new Snapshot(names, ids);
+        ready = true;
+    }
+
+    @Override
+    public void upsert(ProductSearchDocument document) {
+        String name = normalize(document.getName());
+        String previousName = nameById.put(document.getId(), name);
+        if (name.equals(previousName)) {
+            return;
+        }
+
+        Snapshot removed = previousName != null ? snapshot.remove(document.getId(), previousName) : snapshot;
+        snapshot = removed.insert(document.getId(), name);
+    }
+
+    @Override
+    public void remove(long productId) {
+        String previousName = nameById.remove(productId);
+        if (previousName != null) {
+            snapshot = snapshot.remove(productId, previousName);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new long[0]);
+
+        private final String[] names;
+        private final long[] ids;
+
+        private Snapshot(String[] names, long[] ids) {
+            this.names = names;
+            this.ids = ids;
+        }
+
+        // [시작, 끝) 구간을 반환한다.
+        private int[] range(String prefix) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            return new int[]{from, to};
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = names.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (names[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // (name, id) 순서를 유지하는 위치
+        private int position(long productId, String name) {
+            int position = lowerBound(name);
+            while (position < names.length && names[position].equals(name) && ids[position] < productId) {
+                position++;
+            }
+            return position;
+        }
+
+        private Snapshot insert(long productId, String name) {
+            int position = position(productId, name);
+            int size = names.length;
+
+            String[] newNames = new String[size + 1];
+            long[] newIds = new long[size + 1];
+            System.arraycopy(names, 0, newNames, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            newNames[position] = name;
+            newIds[position] = productId;
+            System.arraycopy(names, position, newNames, position + 1, size - position);
+            System.arraycopy(ids, position, newIds, position + 1, size - position);
+            return new Snapshot(newNames, newIds);
+        }
+
+        private Snapshot remove(long productId, String name) {
+            int position = position(productId, name);
+            if (position >= ids.length || ids[position] != productId) {
+                return this;
+            }
+
+            int size = names.length;
+            String[] newNames = new String[size - 1];
+            long[] newIds = new long[size - 1];
+            System.arraycopy(names, 0, newNames, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            System.arraycopy(names, position + 1, newNames, position, size - position - 1);
+            System.arraycopy(ids, position + 1, newIds, position, size - position - 1);
+            return new Snapshot(newNames, newIds);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package flab.commercemarket.domain.product.search;
+
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
+
+import java.util.List;
+
+// ProductSearchIndexer 가 전체 재색인과 변경분 반영을 위임하는 노드 내부 검색 색인
+public interface ProductSearchIndex {
+
+    void replaceAll(List<ProductSearchDocument> documents);
+
+    void upsert(ProductSearchDocument document);
+
+    void remove(long productId);
+
+    boolean isReady();
+}
@@ -0,0 +1,116 @@
+package flab.commercemarket.domain.product.search;
+
+import flab.commercemarket.domain.product.event.ProductChangedEvent;
+import flab.commercemarket.domain.product.repository.ProductRepository;
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 애플리케이션 시작 시 모든 검색 색인을 만들고, 상품 변경 이벤트가 오면 변경된 상품을 한 번만 조회해서 각 색인에 반영한다.
+ * 색인을 만드는 동안 들어온 변경은 모아두었다가 색인 완료 후 다시 반영한다. 모든 상태 변경은 writeLock 안에서 일어난다.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndexer {
+
+    private static final int LOAD_BATCH_SIZE = 10_000;
+
+    private final ProductRepository productRepository;
+    private final List<ProductSearchIndex> indexes;
+    private final boolean enabled;
+
+    private final Object writeLock = new Object();
+    private final Set<Long> changedDuringRebuild = new HashSet<>();
+    private boolean rebuilding;
+
+    public ProductSearchIndexer(ProductRepository productRepository,
+                                List<ProductSearchIndex> indexes,
+                                @Value("${product.search.index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.indexes = indexes;
+        this.enabled = enabled;
+    }
+
+    // 웹 서버가 뜬 뒤에 실행되므로 색인이 만들어지는 동안의 검색은 DB 로 처리된다.
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        log.info("Start rebuild product search index");
+        synchronized (writeLock) {
+            rebuilding = true;
+        }
+
+        try {
+            List<ProductSearchDocument> documents = loadAll();
+
+            synchronized (writeLock) {
+                indexes.forEach(index -> index.replaceAll(documents));
+                rebuilding = false;
+                for (Long productId : changedDuringRebuild) {
+                    refresh(productId);
+                }
+                changedDuringRebuild.clear();
+            }
+            log.info("Complete rebuild product search index. size = {}", documents.size());
+        } catch (DataAccessException e) {
+            synchronized (writeLock) {
+                rebuilding = false;
+                changedDuringRebuild.clear();
+            }
+            log.warn("Fail to rebuild product search index. fall back to DB search", e);
+        }
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            if (rebuilding) {
+                changedDuringRebuild.add(event.getProductId());
+                return;
+            }
+            refresh(event.getProductId());
+        }
+    }
+
+    private void refresh(long productId) {
+        Optional<ProductSearchDocument> document = productRepository.findSearchDocument(productId);
+
+        if (document.isPresent()) {
+            indexes.forEach(index -> index.upsert(document.get()));
+        } else {
+            indexes.forEach(index -> index.remove(productId));
+        }
+    }
+
+    private List<ProductSearchDocument> loadAll() {
+        List<ProductSearchDocument> documents = new ArrayList<>();
+        long lastId = 0L;
+
+        while (true) {
+            List<ProductSearchDocument> batch = productRepository.findSearchDocuments(lastId, LOAD_BATCH_SIZE);
+            documents.addAll(batch);
+            if (batch.size() < LOAD_BATCH_SIZE) {
+                return documents;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package flab.commercemarket.domain.product.search;
+
+import flab.commercemarket.controller.product.dto.ProductSuggestionDto;
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 자동완성용 trie. 각 노드가 하위 상품 중 좋아요 수 상위 k 개를 미리 계산해 두기 때문에
+ * 조회는 접두어 길이만큼 내려가서 배열을 읽는 것으로 끝난다.
+ * 상품이 바뀌면 해당 상품명 경로의 노드만 아래에서부터 다시 계산한다.
+ */
+@Component
+public class ProductSuggestIndex implements ProductSearchIndex {
+
+    private static final Comparator<Suggestion> RANKING = Comparator.comparingInt(Suggestion::getLikeCount).reversed()
+            .thenComparingLong(Suggestion::getProductId);
+
+    private final int topK;
+    private final int maxDepth;
+
+    // writer(ProductSearchIndexer lock) 만 접근한다.
+    private final Map<Long, Suggestion> suggestionById = new HashMap<>();
+
+    private volatile Node root = new Node();
+    private volatile boolean ready;
+
+    public ProductSuggestIndex(@Value("${product.suggest.top-k:10}") int topK,
+                               @Value("${product.suggest.max-depth:30}") int maxDepth) {
+        this.topK = topK;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    // size 는 [1, topK] 로 맞춘다. 노드마다 상위 k 개만 들고 있으므로 그 이상은 줄 수 없다.
+    public List<Suggestion> suggest(String prefix, int size) {
+        String key = normalize(prefix);
+        int limit = Math.max(1, Math.min(size, topK));
+        if (key.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Node node = root;
+        int depth = Math.min(key.length(), maxDepth);
+        for (int i = 0; i < depth; i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>(limit);
+        for (Suggestion suggestion : node.top) {
+            if (suggestions.size() >= limit) {
+                break;
+            }
+            // 최대 깊이보다 긴 접두어는 마지막 노드의 상위 k 개 안에서만 거른다.
+            if (key.length() > maxDepth && !suggestion.normalizedName.startsWith(key)) {
+                continue;
+            }
+            suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    @Override
+    public void replaceAll(List<ProductSearchDocument> documents) {
+        Node newRoot = new Node();
+        suggestionById.clear();
+
+        for (ProductSearchDocument document : documents) {
+            Suggestion suggestion = new Suggestion(document);
+            suggestionById.put(suggestion.productId, suggestion);
+            last(path(newRoot, suggestion.normalizedName, true)).terminals.put(suggestion.productId, suggestion);
+        }
+
+        computeAll(newRoot);
+        root = newRoot;
+        ready = true;
+    }
+
+    @Override
+    public void upsert(ProductSearchDocument document) {
+        Suggestion suggestion = new Suggestion(document);
+        Suggestion previous = suggestionById.put(suggestion.productId, suggestion);
+        if (suggestion.sameAs(previous)) {
+            return;
+        }
+
+        if (previous != null) {
+            detach(previous);
+        }
+
+        List<Node> path = path(root, suggestion.normalizedName, true);
+        last(path).terminals.put(suggestion.productId, suggestion);
+        recompute(path, suggestion.normalizedName);
+    }
+
+    @Override
+    public void remove(long productId) {
+        Suggestion previous = suggestionById.remove(productId);
+        if (previous != null) {
+            detach(previous);
+        }
+    }
+
+    private void detach(Suggestion suggestion) {
+        List<Node> path = path(root, suggestion.normalizedName, false);
+        if (path.size() != Math.min(suggestion.normalizedName.length(), maxDepth) + 1) {
+            return;
+        }
+
+        last(path).terminals.remove(suggestion.productId);
+        recompute(path, suggestion.normalizedName);
+    }
+
+    // root 부터 상품명 경로의 노드들. create 가 false 면 경로가 끊기는 곳까지만 반환한다.
+    private List<Node> path(Node start, String name, boolean create) {
+        List<Node> path = new ArrayList<>(Math.min(name.length(), maxDepth) + 1);
+        path.add(start);
+
+        Node node = start;
+        int depth = Math.min(name.length(), maxDepth);
+        for (int i = 0; i < depth; i++) {
+            Node child = node.children.get(name.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return path;
+                }
+                child = new Node();
+                node.children.put(name.charAt(i), child);
+            }
+            path.add(child);
+            node = child;
+        }
+        return path;
+    }
+
+    private static Node last(List<Node> path) {
+        return path.get(path.size() - 1);
+    }
+
+    // 가장 깊은 노드부터 root 까지 상위 k 개를 다시 계산하고, 비어버린 노드는 부모에서 떼어낸다.
+    private void recompute(List<Node> path, String name) {
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node node = path.get(depth);
+            node.top = computeTop(node);
+
+            if (depth > 0 && node.isEmpty()) {
+                path.get(depth - 1).children.remove(name.charAt(depth - 1));
+            }
+        }
+    }
+
+    private void computeAll(Node node) {
+        for (Node child : node.children.values()) {
+            computeAll(child);
+        }
+        node.top = computeTop(node);
+    }
+
+    private Suggestion[] computeTop(Node node) {
+        List<Suggestion> candidates = new ArrayList<>(node.terminals.values());
+        for (Node child : node.children.values()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+
+        candidates.sort(RANKING);
+        int size = Math.min(candidates.size(), topK);
+        return candidates.subList(0, size).toArray(new Suggestion[0]);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        private final ConcurrentHashMap<Character, Node> children = new ConcurrentHashMap<>();
+        private final Map<Long, Suggestion> terminals = new HashMap<>();
+        private volatile Suggestion[] top = new Suggestion[0];
+
+        private boolean isEmpty() {
+            return children.isEmpty() && terminals.isEmpty();
+        }
+    }
+
+    @Getter
+    public static final class Suggestion {
+        private final long productId;
+        private final String name;
+        private final int likeCount;
+        private final String normalizedName;
+
+        private Suggestion(ProductSearchDocument document) {
+            this.productId = document.getId();
+            this.name = document.getName();
+            this.likeCount = document.getLikeCount();
+            this.normalizedName = normalize(document.getName());
+        }
+
+        private boolean sameAs(Suggestion other) {
+            return other != null
+                    && likeCount == other.likeCount
+                    && Objects.equals(name, other.name);
+        }
+
+        public ProductSuggestionDto toProductSuggestionDto() {
+            return ProductSuggestionDto.builder()
+                    .productId(productId)
+                    .name(name)
+                    .likeCount(likeCount)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package flab.commercemarket.domain.product.search;
+
+public enum SearchMode {
+    // 상품명이 검색어로 시작하는 상품
+    PREFIX,
+    // 상품명이나 설명에 검색어(띄어쓰기로 구분한 모든 단어)가 포함된 상품. 좋아요 순으로 정렬된다.
+    INFIX
+}
@@ -1,8 +1,11 @@
 package flab.commercemarket.domain.product.vo;
 
+import flab.commercemarket.common.id.PooledIdGenerator;
 import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.controller.product.dto.ProductSummaryDto;
 import flab.commercemarket.domain.user.vo.User;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.OptimisticLocking;
 
 import javax.persistence.*;
@@ -17,7 +20,8 @@ import javax.persistence.*;
 @Table(indexes = @Index(name = "idx_product_name", columnList = "name"))
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "product_id")
+    @GenericGenerator(name = "product_id", strategy = PooledIdGenerator.STRATEGY)
     private Long id;
     private String name;
     private int price;
@@ -25,6 +29,11 @@ public class Product {
     private String description;
     private int likeCount;
 
+    // null 이면 재고를 관리하지 않는 상품이다. 재고는 StockReservationEngine 이 예약하고 증감 쿼리로만 반영하므로
+    // 엔티티 UPDATE 에는 포함하지 않는다. (다른 필드를 수정할 때 오래된 재고로 덮어쓰지 않는다)
+    @Column(updatable = false)
+    private Integer stock;
+
     @ManyToOne
     private User seller;
 
@@ -42,4 +51,14 @@ public class Product {
                 .sellerId(seller.getId())
                 .build();
     }
+
+    public ProductSummaryDto toProductSummaryDto() {
+        return ProductSummaryDto.builder()
+                .id(id)
+                .name(name)
+                .price(price)
+                .imageUrl(imageUrl)
+                .likeCount(likeCount)
+                .build();
+    }
 }
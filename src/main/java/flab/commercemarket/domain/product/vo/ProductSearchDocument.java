@@ -0,0 +1,16 @@
+package flab.commercemarket.domain.product.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// 검색 색인을 만들 때 필요한 컬럼만 담는 프로젝션
+@Getter
+@ToString
+@AllArgsConstructor
+public class ProductSearchDocument {
+    private long id;
+    private String name;
+    private String description;
+    private int likeCount;
+}
@@ -0,0 +1,69 @@
+package flab.commercemarket.domain.product.vo;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import flab.commercemarket.domain.user.vo.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+// 캐시에 저장되는 상품 스냅샷. 직렬화 크기를 줄이기 위해 한 글자 키를 사용한다.
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductSnapshot {
+    @JsonProperty("i")
+    private long id;
+
+    @JsonProperty("n")
+    private String name;
+
+    @JsonProperty("p")
+    private int price;
+
+    @JsonProperty("u")
+    private String imageUrl;
+
+    @JsonProperty("d")
+    private String description;
+
+    @JsonProperty("l")
+    private int likeCount;
+
+    @JsonProperty("s")
+    private Long sellerId;
+
+    @JsonProperty("v")
+    private Long version;
+
+    public static ProductSnapshot from(Product product) {
+        Long sellerId = product.getSeller() != null ? product.getSeller().getId() : null;
+
+        return new ProductSnapshot(
+                product.getId(),
+                product.getName(),
+                product.getPrice(),
+                product.getImageUrl(),
+                product.getDescription(),
+                product.getLikeCount(),
+                sellerId,
+                product.getVersion());
+    }
+
+    // 영속성 컨텍스트와 분리된 새 인스턴스를 만든다. version 이 있으므로 연관관계 참조로 사용해도 detached 로 취급된다.
+    public Product toProduct() {
+        User seller = sellerId != null ? User.builder().id(sellerId).build() : null;
+
+        return Product.builder()
+                .id(id)
+                .name(name)
+                .price(price)
+                .imageUrl(imageUrl)
+                .description(description)
+                .likeCount(likeCount)
+                .seller(seller)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,60 @@
+package flab.commercemarket.domain.stock;
+
+import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.OutOfStockException;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 주문 트랜잭션 안에서 조건부 UPDATE 로 product.stock 을 바로 차감한다.
+ * 부족한 상품을 만나면 예외로 트랜잭션을 롤백해서 앞에서 차감한 상품도 함께 되돌린다.
+ * 차감한 행은 커밋까지 잠기므로 같은 상품에 주문이 몰리면 주문 트랜잭션이 줄을 선다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stock.engine", havingValue = "db")
+@RequiredArgsConstructor
+public class DbStockReservationEngine implements StockReservationEngine {
+
+    private final ProductJdbcRepository productJdbcRepository;
+
+    // 교착을 피하도록 productId 순서로 잠근다.
+    @Override
+    @Transactional
+    public void reserve(Map<Long, Integer> quantities) {
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            if (productJdbcRepository.decreaseStock(productId, quantity)) {
+                return;
+            }
+
+            if (productJdbcRepository.findStocks(Collections.singletonList(productId)).isEmpty()) {
+                log.info("productId = {}", productId);
+                throw new DataNotFoundException("조회한 상품 정보가 없음");
+            }
+
+            log.info("Out of stock. productId = {}, quantity = {}", productId, quantity);
+            throw new OutOfStockException("상품 재고가 부족함", productId);
+        });
+    }
+
+    @Override
+    @Transactional
+    public void release(Map<Long, Integer> quantities) {
+        Map<Long, Long> deltas = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> deltas.put(productId, (long) quantity));
+        productJdbcRepository.increaseStocks(deltas);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+}
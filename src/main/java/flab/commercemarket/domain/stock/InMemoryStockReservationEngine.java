@@ -0,0 +1,152 @@
+package flab.commercemarket.domain.stock;
+
+import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.OutOfStockException;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 노드 한 대에 주문을 몰아서 받는 타임 세일용 재고 예약. 남은 재고를 AtomicLongArray 에 들고 CAS 로 차감한다.
+ * 상품마다 배열의 칸(slot)을 하나씩 배정하고, 처음 예약할 때 DB 재고에 아직 반영되지 않은 변화량을 더해서 채운다.
+ * 여러 상품 주문은 앞에서부터 차감하다가 부족한 상품을 만나면 이미 차감한 상품을 되돌린다.
+ * 되돌리기 전까지는 다른 주문이 재고를 실제보다 적게 볼 수 있지만 초과 판매는 생기지 않는다.
+ * 변화량은 StockDeltaWriter 가 주기적으로 DB 에 반영한다. 여러 노드에서 함께 사용하면 안 된다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stock.engine", havingValue = "memory")
+public class InMemoryStockReservationEngine implements StockReservationEngine {
+
+    private static final long UNLIMITED = -1L;
+
+    private final ConcurrentHashMap<Long, Integer> slotByProduct = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicLongArray remaining;
+
+    private final ProductJdbcRepository productJdbcRepository;
+    private final StockDeltaWriter stockDeltaWriter;
+
+    public InMemoryStockReservationEngine(ProductJdbcRepository productJdbcRepository,
+                                          StockDeltaWriter stockDeltaWriter,
+                                          @Value("${stock.memory.capacity:65536}") int capacity) {
+        this.productJdbcRepository = productJdbcRepository;
+        this.stockDeltaWriter = stockDeltaWriter;
+        this.remaining = new AtomicLongArray(capacity);
+    }
+
+    @Override
+    public void reserve(Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        int[] slots = slots(productIds);
+
+        for (int i = 0; i < slots.length; i++) {
+            int quantity = quantities.get(productIds.get(i));
+            if (!tryDecrease(slots[i], quantity)) {
+                for (int j = 0; j < i; j++) {
+                    increase(slots[j], quantities.get(productIds.get(j)));
+                }
+
+                long productId = productIds.get(i);
+                log.info("Out of stock. productId = {}, quantity = {}", productId, quantity);
+                throw new OutOfStockException("상품 재고가 부족함", productId);
+            }
+        }
+
+        stockDeltaWriter.decrease(quantities);
+    }
+
+    @Override
+    public void release(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            // 배정되지 않은 상품은 다음에 채울 때 DB 재고로 반영된다.
+            Integer slot = slotByProduct.get(productId);
+            if (slot != null) {
+                increase(slot, quantity);
+            }
+        });
+        stockDeltaWriter.increase(quantities);
+    }
+
+    private boolean tryDecrease(int slot, int quantity) {
+        while (true) {
+            long current = remaining.get(slot);
+            if (current == UNLIMITED) {
+                return true;
+            }
+            if (current < quantity) {
+                return false;
+            }
+            if (remaining.compareAndSet(slot, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    private void increase(int slot, int quantity) {
+        while (true) {
+            long current = remaining.get(slot);
+            if (current == UNLIMITED || remaining.compareAndSet(slot, current, current + quantity)) {
+                return;
+            }
+        }
+    }
+
+    private int[] slots(List<Long> productIds) {
+        int[] slots = new int[productIds.size()];
+        List<Long> missingIds = null;
+        for (int i = 0; i < slots.length; i++) {
+            Integer slot = slotByProduct.get(productIds.get(i));
+            if (slot == null) {
+                if (missingIds == null) {
+                    missingIds = new ArrayList<>();
+                }
+                missingIds.add(productIds.get(i));
+            } else {
+                slots[i] = slot;
+            }
+        }
+
+        if (missingIds == null) {
+            return slots;
+        }
+
+        load(missingIds);
+        for (int i = 0; i < slots.length; i++) {
+            Integer slot = slotByProduct.get(productIds.get(i));
+            if (slot == null) {
+                log.info("productId = {}", productIds.get(i));
+                throw new DataNotFoundException("조회한 상품 정보가 없음");
+            }
+            slots[i] = slot;
+        }
+        return slots;
+    }
+
+    // 동시에 같은 상품을 채우면 먼저 배정된 값을 사용한다. 변화량을 먼저 읽는 이유는 RedisStockReservationEngine 과 같다.
+    private void load(List<Long> productIds) {
+        Map<Long, Long> pendingDeltas = new HashMap<>();
+        productIds.forEach(productId -> pendingDeltas.put(productId, stockDeltaWriter.pending(productId)));
+        Map<Long, Integer> stocks = productJdbcRepository.findStocks(productIds);
+
+        stocks.forEach((productId, stock) -> slotByProduct.computeIfAbsent(productId, id -> {
+            int slot = nextSlot.getAndIncrement();
+            if (slot >= remaining.length()) {
+                throw new IllegalStateException("stock slots are full. capacity = " + remaining.length());
+            }
+
+            remaining.set(slot, stock == null ? UNLIMITED : Math.max(stock + pendingDeltas.get(productId), 0));
+            return slot;
+        }));
+    }
+}
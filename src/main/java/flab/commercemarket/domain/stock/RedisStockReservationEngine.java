@@ -0,0 +1,265 @@
+package flab.commercemarket.domain.stock;
+
+import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.OutOfStockException;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 상품마다 남은 재고를 Redis 키(stock:{productId}) 로 들고 Lua 스크립트로 모든 주문 상품을 한 번에 확인하고 차감한다.
+ * 스크립트는 원자적으로 실행되므로 DB 행 잠금 없이도 동시에 들어온 주문이 재고보다 많이 팔리지 않는다.
+ * 아직 DB 에 반영되지 않은 변화량은 예약, 반환 스크립트 안에서 Redis hash(stock:pending) 에 같이 더한다.
+ * 반영하는 노드는 hash 를 묶음(stock:pending:batch:{batchId}) 으로 통째로 옮기고 점유 시각을 zset(stock:pending:batches) 에 남긴 뒤
+ * DB 에 반영하고 묶음을 지운다. 반영을 마치지 못한 채 점유 시간이 지난 묶음은 어느 노드든 같은 batchId 로 다시 반영하고,
+ * DB 는 batchId 로 한 번만 반영하므로 노드가 죽어도 변화량이 빠지거나 두 번 반영되지 않는다.
+ * 키가 없으면 DB 재고에 stock:pending 과 아직 지우지 않은 묶음의 변화량을 더해서 채운다.
+ * 재고를 관리하지 않는 상품은 -1 로 들고 있고 차감하지 않는다. 키는 만료시키지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stock.engine", havingValue = "redis", matchIfMissing = true)
+public class RedisStockReservationEngine implements StockReservationEngine {
+
+    private static final String KEY_PREFIX = "stock:";
+    private static final String PENDING_KEY = "stock:pending";
+    private static final String BATCHES_KEY = "stock:pending:batches";
+    private static final String BATCH_KEY_PREFIX = "stock:pending:batch:";
+    private static final String UNLIMITED = "-1";
+
+    private static final long RESERVED = 0L;
+
+    // KEYS = [재고 키..., pending], ARGV = [수량..., productId...]
+    // 성공하면 0, 키가 없으면 -i, 재고가 부족하면 i (i 는 1 부터 시작하는 위치)
+    private static final RedisScript<Long> RESERVE = new DefaultRedisScript<>(
+            "local n = #KEYS - 1 " +
+                    "for i = 1, n do " +
+                    "local stock = redis.call('GET', KEYS[i]) " +
+                    "if not stock then return -i end " +
+                    "stock = tonumber(stock) " +
+                    "if stock >= 0 and stock < tonumber(ARGV[i]) then return i end " +
+                    "end " +
+                    "for i = 1, n do " +
+                    "if tonumber(redis.call('GET', KEYS[i])) >= 0 then redis.call('DECRBY', KEYS[i], ARGV[i]) end " +
+                    "redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], -tonumber(ARGV[i])) " +
+                    "end " +
+                    "return 0", Long.class);
+
+    // 키가 없는 상품은 다음에 채울 때 DB 재고와 반영 대기량으로 반영되므로 재고 키는 건너뛴다.
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "local n = #KEYS - 1 " +
+                    "for i = 1, n do " +
+                    "local stock = redis.call('GET', KEYS[i]) " +
+                    "if stock and tonumber(stock) >= 0 then redis.call('INCRBY', KEYS[i], ARGV[i]) end " +
+                    "redis.call('HINCRBY', KEYS[n + 1], ARGV[n + i], ARGV[i]) " +
+                    "end " +
+                    "return 0", Long.class);
+
+    // KEYS = [pending, batches, 새 묶음], ARGV = [claimedAt, expiredBefore, 새 batchId, 묶음 키 prefix]
+    // 점유 시간이 지난 묶음이 있으면 그 묶음을, 없으면 pending 을 새 묶음으로 옮겨서 {batchId, productId1, delta1, ...} 를 반환한다.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM = new DefaultRedisScript<>(
+            "local batchId = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[2], 'LIMIT', 0, 1)[1] " +
+                    "local batchKey " +
+                    "if batchId then " +
+                    "batchKey = ARGV[4] .. batchId " +
+                    "elseif redis.call('EXISTS', KEYS[1]) == 1 then " +
+                    "batchId = ARGV[3] " +
+                    "batchKey = KEYS[3] " +
+                    "redis.call('RENAME', KEYS[1], batchKey) " +
+                    "else " +
+                    "return {} " +
+                    "end " +
+                    "redis.call('ZADD', KEYS[2], ARGV[1], batchId) " +
+                    "local result = redis.call('HGETALL', batchKey) " +
+                    "table.insert(result, 1, batchId) " +
+                    "return result", List.class);
+
+    // KEYS = [batches, 묶음], ARGV = [batchId, claimedAt]. 그사이 다른 노드가 다시 점유했으면 그 노드가 지운다.
+    private static final RedisScript<Long> ACK = new DefaultRedisScript<>(
+            "if tonumber(redis.call('ZSCORE', KEYS[1], ARGV[1])) ~= tonumber(ARGV[2]) then return 0 end " +
+                    "redis.call('ZREM', KEYS[1], ARGV[1]) " +
+                    "redis.call('DEL', KEYS[2]) " +
+                    "return 1", Long.class);
+
+    // KEYS = [pending, batches], ARGV = [묶음 키 prefix, productId...]. 상품별로 아직 DB 에 반영되지 않은 변화량의 합
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> PENDING = new DefaultRedisScript<>(
+            "local batches = redis.call('ZRANGE', KEYS[2], 0, -1) " +
+                    "local result = {} " +
+                    "for i = 2, #ARGV do " +
+                    "local sum = tonumber(redis.call('HGET', KEYS[1], ARGV[i]) or '0') " +
+                    "for j = 1, #batches do " +
+                    "sum = sum + tonumber(redis.call('HGET', ARGV[1] .. batches[j], ARGV[i]) or '0') " +
+                    "end " +
+                    "result[i - 1] = string.format('%d', sum) " +
+                    "end " +
+                    "return result", List.class);
+
+    private static final RedisScript<Long> LOAD = new DefaultRedisScript<>(
+            "for i = 1, #KEYS do redis.call('SET', KEYS[i], ARGV[i], 'NX') end " +
+                    "return 0", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ProductJdbcRepository productJdbcRepository;
+    private final long claimTimeoutMs;
+    private final long batchRetentionHours;
+
+    public RedisStockReservationEngine(RedisTemplate<String, Object> redisTemplate,
+                                       ProductJdbcRepository productJdbcRepository,
+                                       @Value("${stock.redis.claim-timeout-ms:60000}") long claimTimeoutMs,
+                                       @Value("${stock.redis.batch-retention-hours:24}") long batchRetentionHours) {
+        this.redisTemplate = redisTemplate;
+        this.productJdbcRepository = productJdbcRepository;
+        this.claimTimeoutMs = claimTimeoutMs;
+        this.batchRetentionHours = batchRetentionHours;
+    }
+
+    @Override
+    public void reserve(Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        List<String> keys = scriptKeys(productIds);
+        Object[] args = args(productIds, quantities);
+
+        long result = redisTemplate.execute(RESERVE, keys, args);
+        if (result < 0) {
+            load(productIds);
+            result = redisTemplate.execute(RESERVE, keys, args);
+        }
+
+        if (result < 0) {
+            // DB 에도 없는 상품이다.
+            long productId = productIds.get((int) -result - 1);
+            log.info("productId = {}", productId);
+            throw new DataNotFoundException("조회한 상품 정보가 없음");
+        }
+        if (result != RESERVED) {
+            long productId = productIds.get((int) result - 1);
+            log.info("Out of stock. productId = {}, quantity = {}", productId, quantities.get(productId));
+            throw new OutOfStockException("상품 재고가 부족함", productId);
+        }
+    }
+
+    @Override
+    public void release(Map<Long, Integer> quantities) {
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        redisTemplate.execute(RELEASE, scriptKeys(productIds), args(productIds, quantities));
+    }
+
+    // 한 주기에 묶음 하나를 반영한다. 점유 시간이 지난 묶음이 있으면 그것부터 반영한다.
+    @Scheduled(fixedDelayString = "${stock.flush-interval-ms:1000}")
+    public void flush() {
+        long claimedAt = System.currentTimeMillis();
+        String batchId = UUID.randomUUID().toString();
+        try {
+            List<?> claimed = redisTemplate.execute(CLAIM, Arrays.asList(PENDING_KEY, BATCHES_KEY, BATCH_KEY_PREFIX + batchId),
+                    String.valueOf(claimedAt), String.valueOf(claimedAt - claimTimeoutMs), batchId, BATCH_KEY_PREFIX);
+            if (claimed == null || claimed.isEmpty()) {
+                return;
+            }
+
+            batchId = (String) claimed.get(0);
+            Map<Long, Long> deltas = new HashMap<>();
+            for (int i = 1; i < claimed.size(); i += 2) {
+                long delta = Long.parseLong((String) claimed.get(i + 1));
+                if (delta != 0) {
+                    deltas.put(Long.parseLong((String) claimed.get(i)), delta);
+                }
+            }
+
+            if (!deltas.isEmpty() && !productJdbcRepository.increaseStocksOnce(batchId, deltas)) {
+                log.info("Stock deltas already flushed. batchId = {}", batchId);
+            }
+            redisTemplate.execute(ACK, Arrays.asList(BATCHES_KEY, BATCH_KEY_PREFIX + batchId), batchId, String.valueOf(claimedAt));
+            log.info("Flush stock deltas. batchId = {}, size = {}", batchId, deltas.size());
+        } catch (DataAccessException e) {
+            // 점유한 묶음은 점유 시간이 지나면 다시 꺼내져서 같은 batchId 로 반영된다.
+            log.warn("Fail to flush stock deltas. batchId = {}", batchId, e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // 점유 시간보다 충분히 지난 반영 기록은 다시 쓰일 일이 없다.
+    @Scheduled(fixedDelayString = "${stock.redis.batch-purge-interval-ms:3600000}")
+    public void purgeFlushedBatches() {
+        try {
+            int deleted = productJdbcRepository.deleteStockDeltaBatchesBefore(LocalDateTime.now().minusHours(batchRetentionHours));
+            log.info("Purge flushed stock delta batches. size = {}", deleted);
+        } catch (DataAccessException e) {
+            log.warn("Fail to purge flushed stock delta batches.", e);
+        }
+    }
+
+    // 반영 대기량을 먼저 읽고 DB 를 읽는다. 반영은 DB 를 바꾼 뒤에 묶음을 지우므로,
+    // 그 사이에 반영이 끝나면 변화량이 두 번 빠져서 재고가 적게 잡힐 뿐 초과 판매는 생기지 않는다.
+    private void load(List<Long> productIds) {
+        List<Object> args = new ArrayList<>(productIds.size() + 1);
+        args.add(BATCH_KEY_PREFIX);
+        args.addAll(fields(productIds));
+        List<?> pendingDeltas = redisTemplate.execute(PENDING, Arrays.asList(PENDING_KEY, BATCHES_KEY), args.toArray());
+
+        Map<Long, Long> pendingByProduct = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            pendingByProduct.put(productIds.get(i), Long.parseLong((String) pendingDeltas.get(i)));
+        }
+        Map<Long, Integer> stocks = productJdbcRepository.findStocks(productIds);
+
+        List<Long> foundIds = new ArrayList<>(stocks.keySet());
+        if (foundIds.isEmpty()) {
+            return;
+        }
+
+        List<Object> stockArgs = new ArrayList<>(foundIds.size());
+        for (Long productId : foundIds) {
+            Integer stock = stocks.get(productId);
+            stockArgs.add(stock == null ? UNLIMITED : String.valueOf(Math.max(stock + pendingByProduct.get(productId), 0)));
+        }
+        redisTemplate.execute(LOAD, keys(foundIds), stockArgs.toArray());
+    }
+
+    // 수량 뒤에 반영 대기량 필드로 쓸 상품 id 를 붙인다.
+    private Object[] args(List<Long> productIds, Map<Long, Integer> quantities) {
+        List<Object> args = new ArrayList<>(productIds.size() * 2);
+        productIds.forEach(productId -> args.add(String.valueOf(quantities.get(productId))));
+        args.addAll(fields(productIds));
+        return args.toArray();
+    }
+
+    private List<String> fields(List<Long> productIds) {
+        List<String> fields = new ArrayList<>(productIds.size());
+        productIds.forEach(productId -> fields.add(String.valueOf(productId)));
+        return fields;
+    }
+
+    private List<String> scriptKeys(List<Long> productIds) {
+        List<String> keys = keys(productIds);
+        keys.add(PENDING_KEY);
+        return keys;
+    }
+
+    private List<String> keys(List<Long> productIds) {
+        List<String> keys = new ArrayList<>(productIds.size());
+        productIds.forEach(productId -> keys.add(KEY_PREFIX + productId));
+        return keys;
+    }
+}
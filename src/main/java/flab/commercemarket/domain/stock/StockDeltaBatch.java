@@ -0,0 +1,28 @@
+package flab.commercemarket.domain.stock;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+// DB 에 반영한 재고 변화량 묶음. 같은 묶음이 다시 반영되지 않도록 ProductJdbcRepository 가 JDBC 로만 읽고 쓰며, 엔티티는 DDL 생성에만 사용한다.
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = StockDeltaBatch.TABLE)
+public class StockDeltaBatch {
+
+    public static final String TABLE = "stock_delta_batch";
+
+    @Id
+    @Column(name = "batch_id", length = 36)
+    private String batchId;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,60 @@
+package flab.commercemarket.domain.stock;
+
+import flab.commercemarket.common.counter.PendingDeltaCounter;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+
+// InMemoryStockReservationEngine 이 바꾼 재고 변화량을 메모리에 모아두었다가 주기적으로 한 번에 DB 에 반영한다. (write-behind)
+// 여러 노드가 함께 쓰는 RedisStockReservationEngine 은 변화량을 Redis 에 모아서 직접 반영한다.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockDeltaWriter {
+
+    private final PendingDeltaCounter pendingDeltas = new PendingDeltaCounter();
+
+    private final ProductJdbcRepository productJdbcRepository;
+
+    public void decrease(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> pendingDeltas.add(productId, -quantity));
+    }
+
+    public void increase(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> pendingDeltas.add(productId, quantity));
+    }
+
+    public long pending(long productId) {
+        return pendingDeltas.pending(productId);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.flush-interval-ms:1000}")
+    public void flush() {
+        Map<Long, Long> deltas = pendingDeltas.snapshot();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            productJdbcRepository.increaseStocks(deltas);
+        } catch (DataAccessException e) {
+            // 반영에 실패한 변화량은 남겨두고 다음 주기에 다시 시도한다.
+            log.warn("Fail to flush stock deltas. size = {}", deltas.size(), e);
+            return;
+        }
+
+        pendingDeltas.markFlushed(deltas);
+        log.info("Flush stock deltas. size = {}", deltas.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,20 @@
+package flab.commercemarket.domain.stock;
+
+import java.util.Map;
+
+/**
+ * 주문 상품의 재고 예약. quantities 는 productId -> 수량이고, 재고를 관리하지 않는 상품은 항상 예약된다.
+ * reserve 는 모든 상품을 한 번에 예약하고, 하나라도 부족하면 아무것도 예약하지 않은 채 OutOfStockException 을 던진다.
+ * 구현체는 stock.engine 설정으로 고른다. (redis, memory, db)
+ */
+public interface StockReservationEngine {
+
+    void reserve(Map<Long, Integer> quantities);
+
+    void release(Map<Long, Integer> quantities);
+
+    // 호출한 트랜잭션 안에서 DB 에 바로 반영해서, 트랜잭션이 롤백되면 예약과 반환도 함께 취소되는지
+    default boolean isTransactional() {
+        return false;
+    }
+}
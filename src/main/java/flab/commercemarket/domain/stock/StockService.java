@@ -0,0 +1,70 @@
+package flab.commercemarket.domain.stock;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+// 재고 예약을 주문 트랜잭션에 맞춘다. 예약은 바로 적용하고 트랜잭션이 커밋되지 않으면 되돌린다. 반환은 커밋 이후에 적용한다.
+// 트랜잭션에 참여하는 엔진은 롤백이 곧 취소이므로 예약과 반환을 그대로 위임한다.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockService {
+
+    private final StockReservationEngine stockReservationEngine;
+
+    public void reserve(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            if (quantity < 0) {
+                throw new IllegalArgumentException("quantity must not be negative. productId = " + productId);
+            }
+        });
+
+        stockReservationEngine.reserve(quantities);
+        if (stockReservationEngine.isTransactional() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    log.info("Release stock of rolled back order. quantities = {}", quantities);
+                    releaseNow(quantities);
+                }
+            }
+        });
+    }
+
+    public void release(Map<Long, Integer> quantities) {
+        if (stockReservationEngine.isTransactional()) {
+            stockReservationEngine.release(quantities);
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseNow(quantities);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseNow(quantities);
+            }
+        });
+    }
+
+    // 커밋 이후에는 예외를 던져도 되돌릴 수 없으므로 남기기만 한다. 반환하지 못한 재고는 팔리지 않을 뿐 초과 판매로 이어지지 않는다.
+    private void releaseNow(Map<Long, Integer> quantities) {
+        try {
+            stockReservationEngine.release(quantities);
+        } catch (RuntimeException e) {
+            log.warn("Fail to release stock. quantities = {}", quantities, e);
+        }
+    }
+}
@@ -1,32 +1,49 @@
 package flab.commercemarket.domain.wishlist;
 
+import flab.commercemarket.common.bloom.UserItemBloomFilter;
+import flab.commercemarket.common.count.UserCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
 import flab.commercemarket.common.exception.DuplicateDataException;
 import flab.commercemarket.common.exception.ForbiddenException;
+import flab.commercemarket.common.pagination.Cursor;
+import flab.commercemarket.common.pagination.OffsetPageRequest;
+import flab.commercemarket.common.pagination.Slices;
+import flab.commercemarket.common.utils.ConstraintViolations;
 import flab.commercemarket.domain.product.ProductService;
 import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.User;
+import flab.commercemarket.domain.wishlist.index.WishListUserIndex;
 import flab.commercemarket.domain.wishlist.repository.WishListRepository;
 import flab.commercemarket.domain.wishlist.vo.WishList;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WishListService {
 
+    private static final String COUNT_NAME = "wish";
+
     private final WishListRepository wishListRepository;
     private final UserService userService;
     private final ProductService productService;
+    private final UserCountCache userCountCache;
+    private final UserItemBloomFilter userItemBloomFilter;
+    private final WishListUserIndex wishListUserIndex;
 
     @Transactional
     public WishList registerWishList(String email, long productId) {
@@ -41,7 +58,10 @@ public class WishListService {
                 .product(foundProduct)
                 .build();
 
-        WishList savedWishList = wishListRepository.save(wishList);
+        WishList savedWishList = insertWishList(wishList);
+        userItemBloomFilter.add(COUNT_NAME, foundUser.getId(), productId);
+        wishListUserIndex.add(productId, foundUser.getId());
+        userCountCache.increment(COUNT_NAME, email, 1);
         log.info("user's email = {}, productId = {}", email, productId);
         return savedWishList;
     }
@@ -54,11 +74,48 @@ public class WishListService {
         return wishListRepository.findAllByUserId(foundUser.getId(), pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<WishList> findWishListSlice(String email, int page, int size) {
+        log.info("Start findWishLists without count");
+        User foundUser = userService.getUserByEmail(email);
+        List<WishList> wishLists = wishListRepository.findAllByUserId(foundUser.getId(), OffsetPageRequest.forSlice(page, size));
+        return Slices.of(wishLists, page, size);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<WishList> findWishListsAfter(String email, String after, int size) {
+        log.info("Start findWishLists after cursor");
+        Cursor cursor = Cursor.decode(after);
+        User foundUser = userService.getUserByEmail(email);
+        return Slices.of(wishListRepository.findAllByUserIdAfter(foundUser.getId(), cursor.getId(), size + 1), 1, size);
+    }
+
+    // 위시리스트 목록에 내려줄 상품을 캐시 multi-get 과 IN 쿼리 한 번으로 모아서 조회한다. 삭제된 상품은 빠진다.
+    @Transactional(readOnly = true)
+    public Map<Long, Product> findWishListProducts(List<WishList> wishLists) {
+        return productService.findProductsByIds(wishLists.stream()
+                .map(WishList::getProductId)
+                .collect(Collectors.toList()));
+    }
+
     @Transactional(readOnly = true)
     public long countWishListByUserId(String email) {
         log.info("Start getWishListCountByUserId");
-        User foundUser = userService.getUserByEmail(email);
-        return wishListRepository.countByUserId(foundUser.getId());
+        return userCountCache.get(COUNT_NAME, email, () -> {
+            User foundUser = userService.getUserByEmail(email);
+            return wishListRepository.countByUserId(foundUser.getId());
+        });
+    }
+
+    // 상품을 찜한 사용자 수. 역색인의 set 크기라서 DB 를 조회하지 않는다.
+    @Transactional(readOnly = true)
+    public long countWishesByProductId(long productId) {
+        return wishListUserIndex.count(productId);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<Long, Long> countWishesByProductIds(Collection<Long> productIds) {
+        return wishListUserIndex.countAll(productIds);
     }
 
     @Transactional
@@ -70,6 +127,8 @@ public class WishListService {
         checkUserAuthorization(foundWishList.getUserId(), foundUser.getId());
 
         wishListRepository.delete(foundWishList);
+        wishListUserIndex.remove(foundWishList.getProduct().getId(), foundUser.getId());
+        userCountCache.increment(COUNT_NAME, email, -1);
         log.info("Delete WishList = {}", wishListId);
     }
 
@@ -81,19 +140,30 @@ public class WishListService {
         });
     }
 
+    // 필터가 있을 수도 있다고 할 때만 DB 를 확인한다. 대부분의 등록은 조회 없이 바로 INSERT 한다.
     private void verifyDuplicatedWishList(long userId, long productId) {
-        List<WishList> userWishLists = wishListRepository.getWishListItemByUserId(userId);
-        boolean isDuplicate = userWishLists.stream()
-                .map(WishList::getProduct)
-                .map(Product::getId)
-                .anyMatch(wishListProductId -> wishListProductId == productId);
+        boolean mightContain = userItemBloomFilter.mightContain(COUNT_NAME, userId, productId,
+                () -> wishListRepository.findProductIdsByUserId(userId));
 
-        if (isDuplicate) {
+        if (mightContain && wishListRepository.existsByUserIdAndProductId(userId, productId)) {
             log.info("userId = {}, productId = {}", userId, productId);
             throw new DuplicateDataException("이미 위시리스트에 존재하는 상품입니다.");
         }
     }
 
+    // 확인과 INSERT 사이에 들어온 중복은 (user_id, product_id) 유니크 키 위반으로 판단한다.
+    private WishList insertWishList(WishList wishList) {
+        try {
+            return wishListRepository.saveAndFlush(wishList);
+        } catch (DataIntegrityViolationException e) {
+            if (!ConstraintViolations.isViolated(e, WishList.UNIQUE_USER_PRODUCT)) {
+                throw e;
+            }
+            log.info("userId = {}, productId = {}", wishList.getUserId(), wishList.getProduct().getId());
+            throw new DuplicateDataException("이미 위시리스트에 존재하는 상품입니다.", e);
+        }
+    }
+
     private void checkUserAuthorization(long ownerUserId, long loginUserId) {
         if (ownerUserId != loginUserId) {
             log.info("dataUserId = {}, loginUserId = {}", ownerUserId, loginUserId);
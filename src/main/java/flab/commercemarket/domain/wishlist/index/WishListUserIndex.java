@@ -0,0 +1,211 @@
+package flab.commercemarket.domain.wishlist.index;
+
+import flab.commercemarket.domain.wishlist.repository.WishListRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * 상품을 찜한 사용자 역색인. 상품마다 Redis set(wish:users:{productId}) 에 사용자 id 를 들고 있다.
+ * 처음 접근할 때 DB 의 product_id 인덱스로 채우고, 이후에는 WishListService 의 등록/삭제가 커밋된 뒤 반영한다.
+ * set 에는 적재 여부를 나타내는 멤버(_)를 같이 두므로 찜 수는 SCARD - 1 이다.
+ * 키가 없을 때는 반영하지 않고(다음 접근 때 DB 에서 다시 채운다), 적재와 반영이 겹쳐서 생기는 오차는 TTL 이 지나면 사라진다.
+ */
+@Slf4j
+@Component
+public class WishListUserIndex {
+
+    private static final String KEY_PREFIX = "wish:users:";
+    private static final String LOADED_MEMBER = "_";
+
+    // ARGV = [ttl, member1, member2, ...]. 사용자 수가 많아도 unpack 제한에 걸리지 않도록 하나씩 넣는다.
+    private static final RedisScript<Long> LOAD = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 0 " +
+                    "end " +
+                    "for i = 2, #ARGV do redis.call('SADD', KEYS[1], ARGV[i]) end " +
+                    "redis.call('EXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    // 적재된 set 에만 반영한다.
+    private static final RedisScript<Long> ADD_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "return redis.call('SADD', KEYS[1], ARGV[1])", Long.class);
+
+    private static final RedisScript<Long> REMOVE_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+                    "return redis.call('SREM', KEYS[1], ARGV[1])", Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final WishListRepository wishListRepository;
+    private final long ttlSeconds;
+
+    public WishListUserIndex(RedisTemplate<String, Object> redisTemplate,
+                             WishListRepository wishListRepository,
+                             @Value("${wish.user-index.ttl-seconds:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.wishListRepository = wishListRepository;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long count(long productId) {
+        String key = key(productId);
+        try {
+            load(productId);
+            Long size = redisTemplate.opsForSet().size(key);
+            return size != null ? Math.max(size - 1, 0) : 0L;
+        } catch (DataAccessException e) {
+            log.warn("Fail to read wish user index. key = {}", key, e);
+            return wishListRepository.countByProductId(productId);
+        }
+    }
+
+    // SCARD 를 pipeline 한 번으로 조회한다. 적재되지 않은 상품은 set 을 만들지 않고 GROUP BY 쿼리 한 번으로 센다.
+    public Map<Long, Long> countAll(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Long, Long> counts = new HashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        try {
+            List<Object> sizes = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                ids.forEach(productId -> connection.setCommands().sCard(key(productId).getBytes(StandardCharsets.UTF_8)));
+                return null;
+            });
+
+            for (int i = 0; i < ids.size(); i++) {
+                Long size = (Long) sizes.get(i);
+                if (size == null || size == 0L) {
+                    missingIds.add(ids.get(i));
+                } else {
+                    counts.put(ids.get(i), size - 1);
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Fail to read wish user index. productIds = {}", ids, e);
+            missingIds = ids;
+        }
+
+        if (!missingIds.isEmpty()) {
+            Map<Long, Long> loadedCounts = wishListRepository.countByProductIds(missingIds);
+            missingIds.forEach(productId -> counts.put(productId, loadedCounts.getOrDefault(productId, 0L)));
+        }
+        return counts;
+    }
+
+    // 가격 변경 알림처럼 찜한 사용자 전체에 보내야 할 때 SSCAN 으로 batchSize 만큼씩 넘긴다. 순서는 보장하지 않는다.
+    public void forEachUserBatch(long productId, int batchSize, Consumer<List<Long>> consumer) {
+        String key = key(productId);
+        try {
+            load(productId);
+        } catch (DataAccessException e) {
+            log.warn("Fail to load wish user index. key = {}", key, e);
+            forEachBatch(wishListRepository.findUserIdsByProductId(productId), batchSize, consumer);
+            return;
+        }
+
+        List<Long> batch = new ArrayList<>(batchSize);
+        ScanOptions options = ScanOptions.scanOptions().count(batchSize).build();
+        try (Cursor<Object> cursor = redisTemplate.opsForSet().scan(key, options)) {
+            while (cursor.hasNext()) {
+                String member = (String) cursor.next();
+                if (LOADED_MEMBER.equals(member)) {
+                    continue;
+                }
+
+                batch.add(Long.parseLong(member));
+                if (batch.size() == batchSize) {
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            consumer.accept(batch);
+        }
+    }
+
+    public void add(long productId, long userId) {
+        afterCommit(ADD_IF_EXISTS, productId, userId);
+    }
+
+    public void remove(long productId, long userId) {
+        afterCommit(REMOVE_IF_EXISTS, productId, userId);
+    }
+
+    // 롤백된 변경이 반영되지 않도록 트랜잭션 안에서는 커밋 이후에 반영한다.
+    private void afterCommit(RedisScript<Long> script, long productId, long userId) {
+        String key = key(productId);
+        Runnable update = () -> {
+            try {
+                redisTemplate.execute(script, Collections.singletonList(key), String.valueOf(userId));
+            } catch (DataAccessException e) {
+                // 반영에 실패한 set 은 믿을 수 없으므로 지워서 다음 접근 때 다시 채운다.
+                log.warn("Fail to update wish user index. key = {}, userId = {}", key, userId, e);
+                evict(key);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private void load(long productId) {
+        String key = key(productId);
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            return;
+        }
+
+        List<Long> userIds = wishListRepository.findUserIdsByProductId(productId);
+        List<Object> args = new ArrayList<>(userIds.size() + 2);
+        args.add(String.valueOf(ttlSeconds));
+        args.add(LOADED_MEMBER);
+        userIds.forEach(userId -> args.add(String.valueOf(userId)));
+
+        redisTemplate.execute(LOAD, Collections.singletonList(key), args.toArray());
+    }
+
+    private void evict(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("Fail to evict wish user index. key = {}", key, e);
+        }
+    }
+
+    private static void forEachBatch(List<Long> userIds, int batchSize, Consumer<List<Long>> consumer) {
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            consumer.accept(new ArrayList<>(userIds.subList(from, Math.min(from + batchSize, userIds.size()))));
+        }
+    }
+
+    private String key(long productId) {
+        return KEY_PREFIX + productId;
+    }
+}
@@ -0,0 +1,26 @@
+package flab.commercemarket.domain.wishlist.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// 실제 발송 채널(푸시, 메일)이 붙기 전까지 쓰는 기본 구현. 알림을 로그로만 남긴다.
+@Slf4j
+@Component
+public class LoggingNotificationSink implements NotificationSink {
+
+    @Override
+    public void send(List<PriceDropNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        PriceDropNotification first = notifications.get(0);
+        log.info("Send price drop notifications. productId = {}, price = {} -> {}, size = {}",
+                first.getProductId(), first.getPreviousPrice(), first.getPrice(), notifications.size());
+        if (log.isDebugEnabled()) {
+            notifications.forEach(notification -> log.debug("{}", notification));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package flab.commercemarket.domain.wishlist.notification;
+
+import java.util.List;
+
+// 알림을 실제로 보내는 곳. 같은 상품의 알림을 chunk 단위로 받으므로 구현체는 묶어서 보내면 된다.
+public interface NotificationSink {
+    void send(List<PriceDropNotification> notifications);
+}
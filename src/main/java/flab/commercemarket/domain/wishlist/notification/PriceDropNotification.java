@@ -0,0 +1,16 @@
+package flab.commercemarket.domain.wishlist.notification;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+// 찜한 상품의 가격이 내려갔다는 사용자 알림
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class PriceDropNotification {
+    private final long userId;
+    private final long productId;
+    private final int previousPrice;
+    private final int price;
+}
@@ -0,0 +1,143 @@
+package flab.commercemarket.domain.wishlist.notification;
+
+import flab.commercemarket.domain.wishlist.index.WishListUserIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 찜한 상품의 가격 인하 알림 파이프라인.
+ * 가격 변경은 커밋 이후에 상품별로 모아두고(처음 가격과 마지막 가격만 남긴다), 주기마다 한 번에 처리한다.
+ * 판매자가 짧은 시간에 가격을 여러 번 바꾸더라도 상품마다 한 번만, 최종 가격이 처음보다 낮을 때만 알린다.
+ * 찜한 사용자는 WishListUserIndex 에서 batch 단위로 읽고, 알림은 chunk 단위로 NotificationSink 에 넘긴다.
+ * 변경을 모으는 것은 변경 요청을 받은 노드 안에서만 이루어진다.
+ */
+@Slf4j
+@Component
+public class PriceDropNotifier {
+
+    private final ConcurrentHashMap<Long, PriceChange> pendingChanges = new ConcurrentHashMap<>();
+
+    private final WishListUserIndex wishListUserIndex;
+    private final NotificationSink notificationSink;
+    private final int batchSize;
+    private final Counter changeCounter;
+    private final Counter productCounter;
+    private final Counter notificationCounter;
+    private final Counter failureCounter;
+    private final Timer flushTimer;
+
+    public PriceDropNotifier(WishListUserIndex wishListUserIndex,
+                             NotificationSink notificationSink,
+                             MeterRegistry meterRegistry,
+                             @Value("${wish.price-drop.batch-size:500}") int batchSize) {
+        this.wishListUserIndex = wishListUserIndex;
+        this.notificationSink = notificationSink;
+        this.batchSize = batchSize;
+        this.changeCounter = Counter.builder("wish.price-drop.changes")
+                .register(meterRegistry);
+        this.productCounter = Counter.builder("wish.price-drop.products")
+                .register(meterRegistry);
+        this.notificationCounter = Counter.builder("wish.price-drop.notifications")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("wish.price-drop.notifications")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("wish.price-drop.flush")
+                .register(meterRegistry);
+    }
+
+    // 롤백된 변경은 알리지 않도록 트랜잭션 안에서는 커밋 이후에 모은다.
+    public void priceChanged(long productId, int previousPrice, int price) {
+        Runnable collect = () -> {
+            changeCounter.increment();
+            pendingChanges.merge(productId, new PriceChange(previousPrice, price), PriceChange::then);
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            collect.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                collect.run();
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${wish.price-drop.window-ms:5000}")
+    public void flush() {
+        if (pendingChanges.isEmpty()) {
+            return;
+        }
+
+        flushTimer.record(() -> {
+            for (Long productId : pendingChanges.keySet()) {
+                PriceChange change = pendingChanges.remove(productId);
+                if (change != null && change.isDropped()) {
+                    notify(productId, change);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // 알림은 최선 노력으로 보낸다. 실패한 chunk 는 다시 보내지 않고 실패 수로만 남긴다.
+    private void notify(long productId, PriceChange change) {
+        try {
+            wishListUserIndex.forEachUserBatch(productId, batchSize, userIds -> {
+                List<PriceDropNotification> notifications = new ArrayList<>(userIds.size());
+                userIds.forEach(userId -> notifications.add(
+                        new PriceDropNotification(userId, productId, change.getPreviousPrice(), change.getPrice())));
+
+                try {
+                    notificationSink.send(notifications);
+                    notificationCounter.increment(notifications.size());
+                } catch (RuntimeException e) {
+                    log.warn("Fail to send price drop notifications. productId = {}, size = {}", productId, notifications.size(), e);
+                    failureCounter.increment(notifications.size());
+                }
+            });
+            productCounter.increment();
+        } catch (DataAccessException e) {
+            log.warn("Fail to read wished users. productId = {}", productId, e);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    static class PriceChange {
+        private final int previousPrice;
+        private final int price;
+
+        // 처음 가격은 유지하고 마지막 가격으로 바꾼다.
+        PriceChange then(PriceChange next) {
+            return new PriceChange(previousPrice, next.price);
+        }
+
+        boolean isDropped() {
+            return price < previousPrice;
+        }
+    }
+}
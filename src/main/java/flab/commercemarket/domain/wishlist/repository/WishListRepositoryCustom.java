@@ -3,10 +3,17 @@ package flab.commercemarket.domain.wishlist.repository;
 import flab.commercemarket.domain.wishlist.vo.WishList;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface WishListRepositoryCustom {
-    List<WishList> getWishListItemByUserId(long userId);
     List<WishList> findAllByUserId(long userId, Pageable pageable);
+    List<WishList> findAllByUserIdAfter(long userId, long afterId, int limit);
     long countByUserId(long userId);
+    List<Long> findProductIdsByUserId(long userId);
+    boolean existsByUserIdAndProductId(long userId, long productId);
+    List<Long> findUserIdsByProductId(long productId);
+    long countByProductId(long productId);
+    Map<Long, Long> countByProductIds(Collection<Long> productIds);
 }
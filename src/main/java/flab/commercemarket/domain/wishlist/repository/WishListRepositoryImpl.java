@@ -1,12 +1,17 @@
 package flab.commercemarket.domain.wishlist.repository;
 
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.NumberPath;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import flab.commercemarket.domain.wishlist.vo.QWishList;
 import flab.commercemarket.domain.wishlist.vo.WishList;
 import org.springframework.data.domain.Pageable;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class WishListRepositoryImpl implements WishListRepositoryCustom {
 
@@ -17,29 +22,90 @@ public class WishListRepositoryImpl implements WishListRepositoryCustom {
     }
 
     @Override
-    public List<WishList> getWishListItemByUserId(long userId) {
+    public List<WishList> findAllByUserId(long userId, Pageable pageable) {
         return queryFactory
                 .selectFrom(QWishList.wishList)
                 .where(QWishList.wishList.user.id.eq(userId))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
                 .fetch();
     }
 
+    // (user_id, id) 인덱스 순서와 같아서 정렬 없이 인덱스 범위만 읽는다.
     @Override
-    public List<WishList> findAllByUserId(long userId, Pageable pageable) {
+    public List<WishList> findAllByUserIdAfter(long userId, long afterId, int limit) {
         return queryFactory
                 .selectFrom(QWishList.wishList)
-                .where(QWishList.wishList.user.id.eq(userId))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
+                .where(QWishList.wishList.user.id.eq(userId).and(QWishList.wishList.id.gt(afterId)))
+                .orderBy(QWishList.wishList.id.asc())
+                .limit(limit)
                 .fetch();
     }
 
     @Override
     public long countByUserId(long userId) {
+        Long totalCount = queryFactory
+                .select(QWishList.wishList.count())
+                .from(QWishList.wishList)
+                .where(QWishList.wishList.user.id.eq(userId))
+                .fetchOne();
+
+        return totalCount != null ? totalCount : 0L;
+    }
+
+    @Override
+    public List<Long> findProductIdsByUserId(long userId) {
         return queryFactory
-                .selectFrom(QWishList.wishList)
+                .select(QWishList.wishList.product.id)
+                .from(QWishList.wishList)
                 .where(QWishList.wishList.user.id.eq(userId))
+                .fetch();
+    }
+
+    @Override
+    public boolean existsByUserIdAndProductId(long userId, long productId) {
+        Integer fetchOne = queryFactory
+                .selectOne()
+                .from(QWishList.wishList)
+                .where(QWishList.wishList.user.id.eq(userId).and(QWishList.wishList.product.id.eq(productId)))
+                .fetchFirst();
+
+        return fetchOne != null;
+    }
+
+    @Override
+    public List<Long> findUserIdsByProductId(long productId) {
+        return queryFactory
+                .select(QWishList.wishList.user.id)
+                .from(QWishList.wishList)
+                .where(QWishList.wishList.product.id.eq(productId))
+                .fetch();
+    }
+
+    @Override
+    public long countByProductId(long productId) {
+        Long totalCount = queryFactory
+                .select(QWishList.wishList.count())
+                .from(QWishList.wishList)
+                .where(QWishList.wishList.product.id.eq(productId))
+                .fetchOne();
+
+        return totalCount != null ? totalCount : 0L;
+    }
+
+    // 찜한 사용자가 없는 상품은 결과에 포함되지 않는다.
+    @Override
+    public Map<Long, Long> countByProductIds(Collection<Long> productIds) {
+        NumberPath<Long> productId = QWishList.wishList.product.id;
+        NumberExpression<Long> count = QWishList.wishList.count();
+
+        return queryFactory
+                .select(productId, count)
+                .from(QWishList.wishList)
+                .where(productId.in(productIds))
+                .groupBy(productId)
+                .fetch()
                 .stream()
-                .count();
+                .collect(Collectors.toMap(tuple -> tuple.get(productId), tuple -> tuple.get(count)));
     }
 }
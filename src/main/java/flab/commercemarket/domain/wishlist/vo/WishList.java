@@ -1,5 +1,6 @@
 package flab.commercemarket.domain.wishlist.vo;
 
+import flab.commercemarket.common.id.PooledIdGenerator;
 import flab.commercemarket.controller.wishlist.dto.WishListResponseDto;
 import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.user.vo.User;
@@ -7,28 +8,35 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 
+// (user_id, product_id) 유니크 키는 중복 확인용이고, 사용자별 커서 조회는 (user_id, id) 인덱스로 정렬 없이 읽는다.
 @Getter
 @Builder
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(indexes = {
-        @Index(name = "idx_product_id", columnList = "product_id"),
-        @Index(name = "idx_user_id", columnList = "user_id")
-})
+@Table(uniqueConstraints = @UniqueConstraint(name = WishList.UNIQUE_USER_PRODUCT, columnNames = {"user_id", "product_id"}),
+        indexes = {
+                @Index(name = "idx_user_id_id", columnList = "user_id, id"),
+                @Index(name = "idx_product_id", columnList = "product_id")
+        })
 public class WishList {
 
+    public static final String UNIQUE_USER_PRODUCT = "uk_wish_list_user_product";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "wish_list_id")
+    @GenericGenerator(name = "wish_list_id", strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
-    @OneToOne
+    // 목록 조회에서는 상품 id 만 쓰고, 상품 정보가 필요하면 따로 모아서 조회한다.
+    @ManyToOne(fetch = FetchType.LAZY)
     private Product product;
 
-    @OneToOne
+    @ManyToOne
     private User user;
 
     public WishListResponseDto toWishlistResponseDto() {
@@ -42,4 +50,8 @@ public class WishList {
     public long getUserId() {
         return user.getId();
     }
+
+    public long getProductId() {
+        return product.getId();
+    }
 }
@@ -1,16 +1,29 @@
 package flab.commercemarket.service;
 
+import flab.commercemarket.common.bloom.UserItemBloomFilter;
+import flab.commercemarket.common.count.UserCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.DuplicateDataException;
 import flab.commercemarket.common.exception.ForbiddenException;
+import flab.commercemarket.common.pagination.OffsetPageRequest;
 import flab.commercemarket.controller.cart.dto.CartDto;
+import flab.commercemarket.controller.cart.dto.CartOperationDto;
+import flab.commercemarket.controller.cart.dto.CartOperationResultDto;
 import flab.commercemarket.domain.cart.CartService;
+import flab.commercemarket.domain.cart.cache.CartTotalCache;
+import flab.commercemarket.domain.cart.repository.CartJdbcRepository;
 import flab.commercemarket.domain.cart.repository.CartRepository;
+import flab.commercemarket.domain.cart.store.RedisCartStore;
 import flab.commercemarket.domain.cart.vo.Cart;
+import flab.commercemarket.domain.cart.vo.CartKey;
+import flab.commercemarket.domain.cart.vo.CartOperationStatus;
+import flab.commercemarket.domain.cart.vo.CartOperationType;
 import flab.commercemarket.domain.product.ProductService;
 import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.Role;
 import flab.commercemarket.domain.user.vo.User;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,12 +31,20 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
-import java.util.ArrayList;
+import java.sql.SQLException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -31,6 +52,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,12 +60,27 @@ public class CartServiceTest {
     @Mock
     CartRepository cartRepository;
 
+    @Mock
+    CartJdbcRepository cartJdbcRepository;
+
     @Mock
     ProductService productService;
 
     @Mock
     UserService userService;
 
+    @Mock
+    UserCountCache userCountCache;
+
+    @Mock
+    CartTotalCache cartTotalCache;
+
+    @Mock
+    RedisCartStore redisCartStore;
+
+    @Mock
+    UserItemBloomFilter userItemBloomFilter;
+
     @InjectMocks
     CartService cartService;
 
@@ -72,8 +109,7 @@ public class CartServiceTest {
 
         when(userService.getUserByEmail(email)).thenReturn(user);
         when(productService.getProductById(productId)).thenReturn(product);
-        when(cartRepository.isAlreadyExistentProductInUserCart(userId, productId)).thenReturn(false);
-        when(cartRepository.save(any(Cart.class))).thenReturn(cart);
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenReturn(cart);
 
         // when
         Cart registeredCart = cartService.registerCart(cartDto, email);
@@ -83,6 +119,115 @@ public class CartServiceTest {
         assertThat(cartDto.getProductId()).isEqualTo(registeredCart.getProductId());
     }
 
+    @Test
+    @DisplayName("이미 담긴 상품을 등록하면 유니크 키 위반을 DuplicateDataException으로 바꾼다.")
+    public void registerCartTest_duplicate() {
+        // given
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductById(productId)).thenReturn(product);
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "cart." + Cart.UNIQUE_USER_PRODUCT)));
+
+        // then
+        assertThrows(DuplicateDataException.class, () -> cartService.registerCart(cartDto, email));
+        verify(userCountCache, never()).increment(any(), any(), anyLong());
+    }
+
+    @Test
+    @DisplayName("필터가 있을 수도 있다고 하면 DB 를 확인하고, 이미 담긴 상품이면 INSERT 하지 않는다.")
+    public void registerCartTest_bloomFilterPositive() {
+        // given
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductById(productId)).thenReturn(product);
+        when(userItemBloomFilter.mightContain(eq("cart"), eq(userId), eq(productId), any())).thenReturn(true);
+        when(cartRepository.findCartByUserIdAndProductId(userId, productId)).thenReturn(Optional.of(cartFixture(100L)));
+
+        // then
+        assertThrows(DuplicateDataException.class, () -> cartService.registerCart(cartDto, email));
+        verify(cartRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("장바구니 등록 시 유니크 키가 아닌 무결성 위반은 그대로 던진다.")
+    public void registerCartTest_otherConstraintViolation() {
+        // given
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductById(productId)).thenReturn(product);
+        when(cartRepository.saveAndFlush(any(Cart.class))).thenThrow(new DataIntegrityViolationException("fk",
+                new ConstraintViolationException("fk", new SQLException(), "fk_cart_product")));
+
+        // then
+        assertThrows(DataIntegrityViolationException.class, () -> cartService.registerCart(cartDto, email));
+    }
+
+    @Test
+    @DisplayName("Redis 장바구니를 사용하면 DB 에 바로 저장하지 않는다.")
+    public void registerCartTest_redisStore() {
+        // given
+        when(redisCartStore.isEnabled()).thenReturn(true);
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductById(productId)).thenReturn(product);
+        when(redisCartStore.add(userId, productId, cartDto.getQuantity())).thenReturn(true);
+
+        // when
+        Cart registeredCart = cartService.registerCart(cartDto, email);
+
+        // then
+        assertThat(registeredCart.getProductId()).isEqualTo(productId);
+        assertThat(registeredCart.getQuantity()).isEqualTo(cartDto.getQuantity());
+        verify(cartRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Redis 장바구니에 이미 담긴 상품을 등록하면 DuplicateDataException이 발생한다.")
+    public void registerCartTest_redisStoreDuplicate() {
+        // given
+        when(redisCartStore.isEnabled()).thenReturn(true);
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductById(productId)).thenReturn(product);
+        when(redisCartStore.add(userId, productId, cartDto.getQuantity())).thenReturn(false);
+
+        // then
+        assertThrows(DuplicateDataException.class, () -> cartService.registerCart(cartDto, email));
+    }
+
+    @Test
+    @DisplayName("여러 장바구니 작업을 한 번에 처리하고 항목별 결과를 반환한다.")
+    public void applyCartOperationsTest() {
+        // given
+        List<CartOperationDto> operations = List.of(
+                new CartOperationDto(CartOperationType.ADD, 1L, 1),
+                new CartOperationDto(CartOperationType.ADD, 2L, 5),
+                new CartOperationDto(CartOperationType.ADD, 9L, 1),
+                new CartOperationDto(CartOperationType.UPDATE, 3L, 4),
+                new CartOperationDto(CartOperationType.REMOVE, 1L, 0));
+        Product product2 = Product.builder().id(2L).price(500).build();
+
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.findProductsByIds(Set.of(1L, 2L, 9L))).thenReturn(Map.of(1L, product, 2L, product2));
+        // 수정, 삭제 대상(3, 1)은 필터를 거치지 않고 DB 에서 확인한다.
+        when(userItemBloomFilter.filterMightContain(eq("cart"), eq(userId), eq(Set.of(2L, 9L)), any()))
+                .thenReturn(Set.of());
+        when(cartJdbcRepository.findQuantitiesByUserIdAndProductIds(userId, Set.of(3L, 1L)))
+                .thenReturn(new HashMap<>(Map.of(1L, 2)));
+
+        // when
+        List<CartOperationResultDto> results = cartService.applyCartOperations(email, operations);
+
+        // then
+        assertThat(results).extracting(CartOperationResultDto::getStatus).containsExactly(
+                CartOperationStatus.DUPLICATE,
+                CartOperationStatus.APPLIED,
+                CartOperationStatus.PRODUCT_NOT_FOUND,
+                CartOperationStatus.NOT_FOUND,
+                CartOperationStatus.APPLIED);
+        assertThat(results).extracting(CartOperationResultDto::getQuantity).containsExactly(2, 5, 0, 0, 0);
+        verify(cartJdbcRepository, times(1)).saveQuantities(
+                Map.of(new CartKey(userId, 2L), 5), List.of(new CartKey(userId, 1L)));
+        verify(userCountCache, never()).increment(any(), any(), anyLong());
+        verify(cartTotalCache, times(1)).evict(email);
+    }
+
     @Test
     @DisplayName("장바구니 등록시 사용자가 존재하지 않으면 예외가 발생한다.")
     public void registerCartTest_notFoundUser() throws Exception {
@@ -162,9 +307,31 @@ public class CartServiceTest {
         assertThat(result.size()).isEqualTo(size);
     }
 
+    @Test
+    @DisplayName("count=false 조회는 size + 1 개를 읽어서 다음 페이지 여부를 판단하고 개수는 세지 않는다.")
+    public void findCartSliceTest() throws Exception {
+        // given
+        int page = 2;
+        int size = 5;
+        List<Cart> cartList = cartListFixture();
+
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(cartRepository.findCartByUserId(userId, new OffsetPageRequest(5, 6))).thenReturn(cartList.subList(5, 11));
+
+        // when
+        Slice<Cart> result = cartService.findCartSlice(email, page, size);
+
+        // then
+        assertThat(result.getContent()).hasSize(size);
+        assertThat(result.hasNext()).isTrue();
+        verify(cartRepository, never()).countCartByEmail(any());
+    }
+
     @Test
     public void countCartByUserIdTest() throws Exception {
         // given
+        when(userCountCache.get(eq("cart"), eq(email), any()))
+                .thenAnswer(invocation -> invocation.<LongSupplier>getArgument(2).getAsLong());
         when(cartRepository.countCartByEmail(email)).thenReturn((long) cartListFixture().size());
 
         // when
@@ -188,34 +355,82 @@ public class CartServiceTest {
 
         // then
         verify(cartRepository, times(1)).delete(cart);
+        verify(userCountCache, times(1)).increment("cart", email, -1);
+        verify(cartTotalCache, times(1)).evict(email);
     }
 
     @Test
     public void calculateTotalPriceTest() {
         // Given
         long userId = 1L;
+
+        when(cartTotalCache.get(eq(email), any())).thenAnswer(invocation -> invocation.<LongSupplier>getArgument(1).getAsLong());
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(cartRepository.sumTotalPriceByUserId(userId)).thenReturn(4000L);
+
+        // When
+        long totalPrice = cartService.calculateTotalPrice(email);
+
+        // then
+        assertThat(totalPrice).isEqualTo(4000L);
+        verify(productService, never()).getProductsByIds(any());
+    }
+
+
+    @Test
+    public void calculateTotalPriceTest_redisStore() {
+        // given
         Product product1 = Product.builder().id(1L).price(1000).build();
         Product product2 = Product.builder().id(2L).price(500).build();
-        List<Cart> cartList = new ArrayList<>();
+        SortedMap<Long, Integer> items = new TreeMap<>(Map.of(1L, 3, 2L, 2));
+
+        when(redisCartStore.isEnabled()).thenReturn(true);
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(redisCartStore.findAll(userId)).thenReturn(items);
+        when(productService.findProductsByIds(items.keySet())).thenReturn(Map.of(1L, product1, 2L, product2));
 
-        Cart cart1 = Cart.builder().product(product1).quantity(3).build();
-        Cart cart2 = Cart.builder().product(product2).quantity(2).build();
+        // when
+        long totalPrice = cartService.calculateTotalPrice(email);
+
+        // then
+        assertThat(totalPrice).isEqualTo(4000L);
+        verify(cartRepository, never()).sumTotalPriceByUserId(anyLong());
+    }
 
-        cartList.add(cart1);
-        cartList.add(cart2);
+    @Test
+    @DisplayName("Redis 장바구니에 삭제된 상품이 있으면 합계에서 빼고 계산한다.")
+    public void calculateTotalPriceTest_redisStoreWithDeletedProduct() {
+        // given
+        Product product1 = Product.builder().id(1L).price(1000).build();
+        SortedMap<Long, Integer> items = new TreeMap<>(Map.of(1L, 3, 2L, 2));
 
+        when(redisCartStore.isEnabled()).thenReturn(true);
         when(userService.getUserByEmail(email)).thenReturn(user);
-        when(cartRepository.findAllByUserId(userId)).thenReturn(cartList);
-        when(productService.getProductById(1L)).thenReturn(product1);
-        when(productService.getProductById(2L)).thenReturn(product2);
+        when(redisCartStore.findAll(userId)).thenReturn(items);
+        when(productService.findProductsByIds(items.keySet())).thenReturn(Map.of(1L, product1));
 
-        // When
-        int totalPrice = cartService.calculateTotalPrice(email);
+        // when
+        long totalPrice = cartService.calculateTotalPrice(email);
 
         // then
-        assertThat(4000).isEqualTo(totalPrice);
+        assertThat(totalPrice).isEqualTo(3000L);
     }
 
+    @Test
+    @DisplayName("장바구니 목록의 상품은 한 번에 모아서 조회한다.")
+    public void findCartProductsTest() {
+        // given
+        List<Cart> carts = cartListFixture();
+        when(productService.findProductsByIds(anyCollection())).thenReturn(Map.of(productId, product));
+
+        // when
+        Map<Long, Product> products = cartService.findCartProducts(carts);
+
+        // then
+        assertThat(products).containsEntry(productId, product);
+        verify(productService, times(1)).findProductsByIds(anyCollection());
+        verify(productService, never()).getProductById(anyLong());
+    }
 
     private Cart cartFixture(long cartId) {
         return Cart.builder().id(cartId).user(user).product(product).build();
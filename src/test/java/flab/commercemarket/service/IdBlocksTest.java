@@ -0,0 +1,125 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.common.id.IdBlock;
+import flab.commercemarket.common.id.IdBlocks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class IdBlocksTest {
+
+    Connection connection;
+
+    @BeforeEach
+    void init() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:" + UUID.randomUUID());
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + IdBlocks.TABLE + " (segment VARCHAR(255) PRIMARY KEY, next_val BIGINT NOT NULL)");
+            statement.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY)");
+            statement.execute("INSERT INTO orders (id) VALUES (3), (7)");
+        }
+        connection.commit();
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    @DisplayName("블록을 다 쓰면 allocator 에서 다음 블록의 시작값을 받아온다.")
+    public void idBlockTest_rollover() {
+        // given
+        IdBlock idBlock = new IdBlock(3);
+        Iterator<Long> starts = List.of(1L, 100L).iterator();
+        List<Long> ids = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            ids.add(idBlock.next(starts::next));
+        }
+
+        // then
+        assertThat(ids).containsExactly(1L, 2L, 3L, 100L, 101L);
+        assertThat(starts.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("처음 할당하는 테이블은 MAX(id) + 1 부터 시작하고, 이후에는 blockSize 만큼 건너뛴다.")
+    public void allocateTest() throws SQLException {
+        // when
+        long first = IdBlocks.allocate(connection, "orders", "id", 10);
+        long second = IdBlocks.allocate(connection, "orders", "id", 10);
+        connection.commit();
+
+        // then
+        assertThat(first).isEqualTo(8L);
+        assertThat(second).isEqualTo(18L);
+        assertThat(nextVal("orders")).isEqualTo(28L);
+    }
+
+    @Test
+    @DisplayName("처음 INSERT 가 교착 상태로 롤백되면 다시 읽어서 블록을 할당한다.")
+    public void allocateTest_retryDeadlock() throws SQLException {
+        // given
+        Connection deadlocked = mock(Connection.class, delegatesTo(connection));
+        doThrow(new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213))
+                .doAnswer(delegatesTo(connection))
+                .when(deadlocked).prepareStatement(startsWith("INSERT"));
+
+        // when
+        long start = IdBlocks.allocate(deadlocked, "orders", "id", 10);
+        connection.commit();
+
+        // then
+        assertThat(start).isEqualTo(8L);
+        assertThat(nextVal("orders")).isEqualTo(18L);
+        verify(deadlocked, times(1)).rollback();
+    }
+
+    @Test
+    @DisplayName("잠금 대기 시간 초과가 계속되면 몇 번 다시 시도한 뒤 예외를 던진다.")
+    public void allocateTest_lockWaitTimeout() {
+        // given
+        Connection locked = mock(Connection.class, delegatesTo(connection));
+        SQLException lockWaitTimeout = new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+        doThrow(lockWaitTimeout).when(locked).prepareStatement(startsWith("SELECT next_val"));
+
+        // when
+        SQLException thrown = assertThrows(SQLException.class, () -> IdBlocks.allocate(locked, "orders", "id", 10));
+
+        // then
+        assertThat(thrown).isSameAs(lockWaitTimeout);
+    }
+
+    private long nextVal(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT next_val FROM " + IdBlocks.TABLE + " WHERE segment = '" + table + "'")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
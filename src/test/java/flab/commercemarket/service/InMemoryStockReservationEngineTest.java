@@ -0,0 +1,159 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.OutOfStockException;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import flab.commercemarket.domain.stock.InMemoryStockReservationEngine;
+import flab.commercemarket.domain.stock.StockDeltaWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class InMemoryStockReservationEngineTest {
+
+    @Mock
+    ProductJdbcRepository productJdbcRepository;
+
+    StockDeltaWriter stockDeltaWriter;
+    InMemoryStockReservationEngine engine;
+
+    long productA = 1L;
+    long productB = 2L;
+    Map<Long, Integer> stocks;
+
+    @BeforeEach
+    void init() {
+        stocks = new HashMap<>();
+        lenient().when(productJdbcRepository.findStocks(any())).thenAnswer(invocation -> {
+            Map<Long, Integer> found = new HashMap<>();
+            invocation.<Collection<Long>>getArgument(0).forEach(productId -> {
+                if (stocks.containsKey(productId)) {
+                    found.put(productId, stocks.get(productId));
+                }
+            });
+            return found;
+        });
+
+        stockDeltaWriter = new StockDeltaWriter(productJdbcRepository);
+        engine = new InMemoryStockReservationEngine(productJdbcRepository, stockDeltaWriter, 16);
+    }
+
+    @Test
+    @DisplayName("동시에 주문이 몰려도 재고보다 많이 팔리지 않는다.")
+    public void reserveTest_concurrent() throws Exception {
+        // given
+        stocks.put(productA, 100);
+        stocks.put(productB, 50);
+
+        int orderCount = 4000;
+        int threadCount = 64;
+        AtomicInteger soldA = new AtomicInteger();
+        AtomicInteger soldB = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(orderCount);
+
+        // when: 절반은 두 상품을 함께, 절반은 A 만 주문한다.
+        for (int i = 0; i < orderCount; i++) {
+            boolean bundle = i % 2 == 0;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (bundle) {
+                        engine.reserve(Map.of(productA, 1, productB, 1));
+                        soldA.incrementAndGet();
+                        soldB.incrementAndGet();
+                    } else {
+                        engine.reserve(Map.of(productA, 1));
+                        soldA.incrementAndGet();
+                    }
+                } catch (OutOfStockException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        // then: 재고가 바닥나서 더 이상 예약되지 않고, 판매량만큼 DB 에 반영할 변화량이 쌓인다.
+        assertThat(soldA.get()).isEqualTo(100);
+        assertThat(soldB.get()).isLessThanOrEqualTo(50);
+        assertThat(soldA.get() + rejected.get()).isEqualTo(orderCount);
+        assertThat(stockDeltaWriter.pending(productA)).isEqualTo(-100);
+        assertThat(stockDeltaWriter.pending(productB)).isEqualTo(-soldB.get());
+        assertThrows(OutOfStockException.class, () -> engine.reserve(Map.of(productA, 1)));
+    }
+
+    @Test
+    @DisplayName("한 상품이라도 부족하면 먼저 차감한 상품도 되돌린다.")
+    public void reserveTest_allOrNothing() {
+        // given
+        stocks.put(productA, 1);
+        stocks.put(productB, 0);
+
+        // then
+        OutOfStockException exception = assertThrows(OutOfStockException.class,
+                () -> engine.reserve(Map.of(productA, 1, productB, 1)));
+        assertThat(exception.getProductId()).isEqualTo(productB);
+        assertThat(stockDeltaWriter.pending(productA)).isZero();
+        engine.reserve(Map.of(productA, 1));
+    }
+
+    @Test
+    @DisplayName("반환한 재고는 다시 예약할 수 있다.")
+    public void releaseTest() {
+        // given
+        stocks.put(productA, 1);
+        engine.reserve(Map.of(productA, 1));
+
+        // when
+        engine.release(Map.of(productA, 1));
+
+        // then
+        engine.reserve(Map.of(productA, 1));
+        assertThat(stockDeltaWriter.pending(productA)).isEqualTo(-1);
+        assertThrows(OutOfStockException.class, () -> engine.reserve(Map.of(productA, 1)));
+    }
+
+    @Test
+    @DisplayName("재고를 관리하지 않는 상품은 수량과 관계없이 예약된다.")
+    public void reserveTest_unlimited() {
+        // given
+        stocks.put(productA, null);
+
+        // then
+        engine.reserve(Map.of(productA, 1_000_000));
+        engine.reserve(Map.of(productA, 1_000_000));
+    }
+
+    @Test
+    @DisplayName("없는 상품은 예약할 수 없다.")
+    public void reserveTest_notFound() {
+        assertThrows(DataNotFoundException.class, () -> engine.reserve(Map.of(productA, 1)));
+    }
+}
@@ -0,0 +1,134 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.domain.order.MerchantUidGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MerchantUidGeneratorTest {
+
+    @Test
+    @DisplayName("여러 스레드에서 동시에 만들어도 겹치지 않고 스레드마다 증가한다.")
+    public void nextIdTest_concurrent() throws Exception {
+        // given
+        MerchantUidGenerator generator = new MerchantUidGenerator(1);
+        int threadCount = 8;
+        int idsPerThread = 500_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threadCount; i++) {
+            Callable<long[]> task = () -> {
+                start.await();
+                long[] ids = new long[idsPerThread];
+                for (int j = 0; j < idsPerThread; j++) {
+                    ids[j] = generator.nextId();
+                }
+                return ids;
+            };
+            futures.add(executor.submit(task));
+        }
+        start.countDown();
+
+        long[] all = new long[threadCount * idsPerThread];
+        for (int i = 0; i < threadCount; i++) {
+            long[] ids = futures.get(i).get(60, TimeUnit.SECONDS);
+            assertThat(isStrictlyIncreasing(ids)).isTrue();
+            System.arraycopy(ids, 0, all, i * idsPerThread, idsPerThread);
+        }
+        executor.shutdown();
+
+        // then: 정렬했을 때 순증가하면 겹친 값이 없다.
+        Arrays.sort(all);
+        assertThat(isStrictlyIncreasing(all)).isTrue();
+    }
+
+    @Test
+    @DisplayName("시계가 뒤로 가도 이전보다 큰 값을 만든다.")
+    public void nextIdTest_clockMovedBackwards() {
+        // given
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        MerchantUidGenerator generator = new MerchantUidGenerator(1, now::get);
+        long before = generator.nextId();
+
+        // when
+        now.addAndGet(-10_000);
+        long after = generator.nextId();
+
+        // then
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    @DisplayName("한 ms 에 순번을 다 쓰면 다음 ms 를 빌려 쓰고 겹치지 않는다.")
+    public void nextIdTest_sequenceOverflow() {
+        // given
+        MerchantUidGenerator generator = new MerchantUidGenerator(1, () -> 1_700_000_000_000L);
+
+        // when
+        long[] ids = new long[10_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = generator.nextId();
+        }
+
+        // then
+        assertThat(isStrictlyIncreasing(ids)).isTrue();
+    }
+
+    @Test
+    @DisplayName("노드 id 가 다르면 같은 시각에도 겹치지 않는다.")
+    public void nextIdTest_nodes() {
+        MerchantUidGenerator node1 = new MerchantUidGenerator(1, () -> 1_700_000_000_000L);
+        MerchantUidGenerator node2 = new MerchantUidGenerator(2, () -> 1_700_000_000_000L);
+
+        assertThat(node1.nextId()).isNotEqualTo(node2.nextId());
+    }
+
+    @Test
+    @DisplayName("merchantUid 는 자릿수가 같아서 문자열 순서가 생성 순서와 같다.")
+    public void nextTest() {
+        // given
+        AtomicLong now = new AtomicLong(1_700_000_000_000L);
+        MerchantUidGenerator generator = new MerchantUidGenerator(1, now::get);
+
+        // when
+        String first = generator.next();
+        now.addAndGet(1_000);
+        String second = generator.next();
+
+        // then
+        assertThat(first).startsWith("merch_").hasSize("merch_".length() + 19);
+        assertThat(second).hasSameSizeAs(first);
+        assertThat(second.compareTo(first)).isPositive();
+    }
+
+    @Test
+    public void constructorTest_invalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new MerchantUidGenerator(1024));
+    }
+
+    private static boolean isStrictlyIncreasing(long[] ids) {
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] <= ids[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
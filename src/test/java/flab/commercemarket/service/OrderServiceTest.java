@@ -1,15 +1,24 @@
 package flab.commercemarket.service;
 
+import flab.commercemarket.common.count.UserCountCache;
 import flab.commercemarket.common.exception.ForbiddenException;
+import flab.commercemarket.common.exception.OrderQueueFullException;
+import flab.commercemarket.common.exception.OutOfStockException;
 import flab.commercemarket.common.utils.DateUtils;
 import flab.commercemarket.controller.order.dto.OrderProductRequestDto;
 import flab.commercemarket.controller.order.dto.OrderRequestDto;
+import flab.commercemarket.domain.order.MerchantUidGenerator;
 import flab.commercemarket.domain.order.OrderService;
+import flab.commercemarket.domain.order.intake.OrderIntake;
+import flab.commercemarket.domain.order.intake.OrderIntakeQueue;
+import flab.commercemarket.domain.order.intake.OrderIntakeStatus;
+import flab.commercemarket.domain.order.intake.PendingOrder;
 import flab.commercemarket.domain.order.repository.OrderRepository;
 import flab.commercemarket.domain.order.vo.Order;
 import flab.commercemarket.domain.order.vo.OrderProduct;
 import flab.commercemarket.domain.product.ProductService;
 import flab.commercemarket.domain.product.vo.Product;
+import flab.commercemarket.domain.stock.StockService;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.Role;
 import flab.commercemarket.domain.user.vo.User;
@@ -27,12 +36,14 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.LongSupplier;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,6 +61,18 @@ public class OrderServiceTest {
     @Mock
     private DateUtils dateUtils;
 
+    @Mock
+    private UserCountCache userCountCache;
+
+    @Mock
+    private StockService stockService;
+
+    @Mock
+    private OrderIntakeQueue orderIntakeQueue;
+
+    @Mock
+    private MerchantUidGenerator merchantUidGenerator;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -74,7 +97,8 @@ public class OrderServiceTest {
 
         when(userService.getUserByEmail(email)).thenReturn(user);
         Product product = Product.builder().price(5000).build();
-        when(productService.getProductById(anyLong())).thenReturn(product);
+        // 샘플 주문 상품은 모두 productId 가 0 이다.
+        when(productService.getProductsByIds(any())).thenReturn(Collections.singletonMap(0L, product));
 
         Order savedOrder = Order.builder()
                 .id(100L)
@@ -91,6 +115,70 @@ public class OrderServiceTest {
         // then
         assertThat(actualOrder).isNotNull();
         assertThat(actualOrder.getUser().getId()).isEqualTo(userId);
+        // 같은 상품의 주문 줄은 합쳐서 한 번에 예약한다.
+        verify(stockService, times(1)).reserve(Map.of(0L, 0));
+    }
+
+    @Test
+    public void registerOrderTest_outOfStock() {
+        // given
+        OrderRequestDto orderRequestDto = new OrderRequestDto(createSampleOrderProductRequestDto());
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductsByIds(any())).thenReturn(Collections.singletonMap(0L, product));
+        doThrow(new OutOfStockException("상품 재고가 부족함", 0L)).when(stockService).reserve(any());
+
+        // then
+        assertThrows(OutOfStockException.class, () -> orderService.registerOrder(email, orderRequestDto));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    public void acceptOrderTest() {
+        // given
+        OrderRequestDto orderRequestDto = new OrderRequestDto(createSampleOrderProductRequestDto());
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductsByIds(any())).thenReturn(Collections.singletonMap(0L, product));
+        when(merchantUidGenerator.next()).thenReturn("merch_0000000000000000001");
+        when(orderIntakeQueue.accept(any())).thenAnswer(invocation ->
+                OrderIntake.accepted(invocation.<PendingOrder>getArgument(0).getMerchantUid()));
+
+        // when
+        OrderIntake intake = orderService.acceptOrder(email, orderRequestDto);
+
+        // then
+        assertThat(intake.getStatus()).isEqualTo(OrderIntakeStatus.ACCEPTED);
+        assertThat(intake.getMerchantUid()).isEqualTo("merch_0000000000000000001");
+        verify(stockService, times(1)).reserve(Map.of(0L, 0));
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    public void acceptOrderTest_queueFull() {
+        // given
+        OrderRequestDto orderRequestDto = new OrderRequestDto(createSampleOrderProductRequestDto());
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductsByIds(any())).thenReturn(Collections.singletonMap(0L, product));
+        when(orderIntakeQueue.accept(any())).thenThrow(new OrderQueueFullException("주문 대기열이 가득 참"));
+
+        // then
+        assertThrows(OrderQueueFullException.class, () -> orderService.acceptOrder(email, orderRequestDto));
+        verify(stockService, times(1)).release(Map.of(0L, 0));
+    }
+
+    @Test
+    public void getOrderIntakeTest_persisted() {
+        // given
+        String merchantUid = "merch_0000000000000000001";
+        Order order = Order.builder().id(100L).merchantUid(merchantUid).build();
+        when(orderIntakeQueue.find(merchantUid)).thenReturn(Optional.empty());
+        when(orderRepository.findByMerchantUid(merchantUid)).thenReturn(Optional.of(order));
+
+        // when
+        OrderIntake intake = orderService.getOrderIntake(merchantUid);
+
+        // then
+        assertThat(intake.getStatus()).isEqualTo(OrderIntakeStatus.COMPLETED);
+        assertThat(intake.getOrderId()).isEqualTo(100L);
     }
 
     @Test
@@ -118,6 +206,38 @@ public class OrderServiceTest {
 
         // then
         verify(orderRepository, times(1)).delete(order);
+        verify(userCountCache, times(1)).incrementInRange("order", email, order.getOrderedAt(), -1);
+    }
+
+    @Test
+    public void deleteOrderTest_releaseStock() {
+        // given
+        long orderId = 123;
+        Order order = orderFixture(orderId);
+
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(orderRepository.findById(orderId)).thenReturn(Optional.of(order));
+        when(orderRepository.markStockReleased(orderId)).thenReturn(true);
+
+        // when
+        orderService.deleteOrder(email, orderId);
+
+        // then
+        verify(stockService, times(1)).release(Map.of(productId, 2));
+        verify(orderRepository, times(1)).delete(order);
+    }
+
+    @Test
+    public void releaseStockTest_alreadyReleased() {
+        // given
+        Order order = orderFixture(1L);
+        when(orderRepository.markStockReleased(1L)).thenReturn(false);
+
+        // when
+        orderService.releaseStock(order);
+
+        // then
+        verify(stockService, never()).release(any());
     }
 
     @Test
@@ -174,6 +294,8 @@ public class OrderServiceTest {
         long mockCount = 10;
         when(userService.getUserByEmail(email)).thenReturn(user);
         when(orderRepository.countOrderBetweenDate(user.getId(), startDateTime, endDateTime)).thenReturn(mockCount);
+        when(userCountCache.getInRange(eq("order"), eq(email), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<LongSupplier>getArgument(4).getAsLong());
 
         // when
         long result = orderService.countOrderByDate(email, startDate, endDate);
@@ -0,0 +1,183 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.domain.wishlist.index.WishListUserIndex;
+import flab.commercemarket.domain.wishlist.notification.NotificationSink;
+import flab.commercemarket.domain.wishlist.notification.PriceDropNotification;
+import flab.commercemarket.domain.wishlist.notification.PriceDropNotifier;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+public class PriceDropNotifierTest {
+
+    @Mock
+    WishListUserIndex wishListUserIndex;
+
+    @Mock
+    NotificationSink notificationSink;
+
+    SimpleMeterRegistry meterRegistry;
+    PriceDropNotifier priceDropNotifier;
+
+    long productId = 1L;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        priceDropNotifier = new PriceDropNotifier(wishListUserIndex, notificationSink, meterRegistry, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("한 주기 안의 가격 변경은 처음 가격과 마지막 가격으로 합쳐서 한 번만 알린다.")
+    public void flushTest_coalesce() {
+        // given
+        givenWishedUsers(List.of(10L));
+        priceDropNotifier.priceChanged(productId, 1000, 900);
+        priceDropNotifier.priceChanged(productId, 900, 1200);
+        priceDropNotifier.priceChanged(productId, 1200, 800);
+
+        // when
+        priceDropNotifier.flush();
+        priceDropNotifier.flush();
+
+        // then
+        List<PriceDropNotification> notifications = sentNotifications(1);
+        assertThat(notifications)
+                .extracting(PriceDropNotification::getUserId, PriceDropNotification::getProductId,
+                        PriceDropNotification::getPreviousPrice, PriceDropNotification::getPrice)
+                .containsExactly(tuple(10L, productId, 1000, 800));
+        assertThat(meterRegistry.counter("wish.price-drop.changes").count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("가격이 오르거나 결국 그대로이면 알리지 않는다.")
+    public void flushTest_notDropped() {
+        // given
+        priceDropNotifier.priceChanged(productId, 1000, 1200);
+        priceDropNotifier.priceChanged(2L, 1000, 900);
+        priceDropNotifier.priceChanged(2L, 900, 1000);
+
+        // when
+        priceDropNotifier.flush();
+
+        // then
+        verifyNoInteractions(wishListUserIndex, notificationSink);
+    }
+
+    @Test
+    @DisplayName("트랜잭션이 롤백되면 가격 변경을 모으지 않는다.")
+    public void priceChangedTest_rollback() {
+        // given
+        TransactionSynchronizationManager.initSynchronization();
+        priceDropNotifier.priceChanged(productId, 1000, 800);
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        priceDropNotifier.flush();
+
+        // then
+        verifyNoInteractions(wishListUserIndex, notificationSink);
+        assertThat(meterRegistry.counter("wish.price-drop.changes").count()).isZero();
+    }
+
+    @Test
+    @DisplayName("트랜잭션이 커밋된 뒤에 가격 변경을 모아서 알린다.")
+    public void priceChangedTest_commit() {
+        // given
+        givenWishedUsers(List.of(10L));
+        TransactionSynchronizationManager.initSynchronization();
+        priceDropNotifier.priceChanged(productId, 1000, 800);
+
+        // 커밋 전에는 아무것도 모으지 않는다.
+        priceDropNotifier.flush();
+        verifyNoInteractions(wishListUserIndex, notificationSink);
+
+        // when
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+        priceDropNotifier.flush();
+
+        // then
+        assertThat(sentNotifications(1)).extracting(PriceDropNotification::getPrice).containsExactly(800);
+    }
+
+    @Test
+    @DisplayName("찜한 사용자를 batch 단위로 읽어 batch 마다 알림을 보내고, 실패한 batch 는 건너뛴다.")
+    public void flushTest_batch() {
+        // given
+        givenWishedUsers(List.of(10L, 11L), List.of(12L, 13L), List.of(14L));
+        doThrow(new IllegalStateException("sink unavailable"))
+                .doNothing()
+                .when(notificationSink).send(any());
+        priceDropNotifier.priceChanged(productId, 1000, 800);
+
+        // when
+        priceDropNotifier.flush();
+
+        // then
+        verify(wishListUserIndex, times(1)).forEachUserBatch(eq(productId), eq(2), any());
+        ArgumentCaptor<List<PriceDropNotification>> captor = notificationsCaptor();
+        verify(notificationSink, times(3)).send(captor.capture());
+        assertThat(captor.getAllValues())
+                .extracting(notifications -> notifications.size())
+                .containsExactly(2, 2, 1);
+        assertThat(meterRegistry.counter("wish.price-drop.notifications", "result", "sent").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("wish.price-drop.notifications", "result", "failed").count()).isEqualTo(2);
+    }
+
+    @SafeVarargs
+    private void givenWishedUsers(List<Long>... batches) {
+        doAnswer(invocation -> {
+            Consumer<List<Long>> consumer = invocation.getArgument(2);
+            for (List<Long> batch : batches) {
+                consumer.accept(batch);
+            }
+            return null;
+        }).when(wishListUserIndex).forEachUserBatch(anyLong(), eq(2), any());
+    }
+
+    private List<PriceDropNotification> sentNotifications(int times) {
+        ArgumentCaptor<List<PriceDropNotification>> captor = notificationsCaptor();
+        verify(notificationSink, times(times)).send(captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<PriceDropNotification>> notificationsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
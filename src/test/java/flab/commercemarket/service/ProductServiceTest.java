@@ -1,13 +1,25 @@
 package flab.commercemarket.service;
 
 import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.InvalidCursorException;
+import flab.commercemarket.common.pagination.Cursor;
+import flab.commercemarket.controller.product.dto.LikeResponseDto;
 import flab.commercemarket.controller.product.dto.ProductDto;
+import flab.commercemarket.controller.product.dto.ProductResponseDto;
+import flab.commercemarket.domain.cart.cache.CartTotalCache;
 import flab.commercemarket.domain.product.ProductService;
+import flab.commercemarket.domain.product.cache.ProductCache;
+import flab.commercemarket.domain.product.like.ProductLikeCounter;
+import flab.commercemarket.domain.product.like.ProductLikeRegistry;
 import flab.commercemarket.domain.product.repository.ProductRepository;
+import flab.commercemarket.domain.product.search.ProductNgramIndex;
+import flab.commercemarket.domain.product.search.ProductPrefixIndex;
+import flab.commercemarket.domain.product.search.ProductSuggestIndex;
 import flab.commercemarket.domain.product.vo.Product;
 import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.Role;
 import flab.commercemarket.domain.user.vo.User;
+import flab.commercemarket.domain.wishlist.notification.PriceDropNotifier;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,14 +28,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -40,6 +55,30 @@ public class ProductServiceTest {
     @Mock
     UserService userService;
 
+    @Mock
+    ProductCache productCache;
+
+    @Mock
+    ProductLikeCounter productLikeCounter;
+
+    @Mock
+    ProductLikeRegistry productLikeRegistry;
+
+    @Mock
+    ProductPrefixIndex productPrefixIndex;
+
+    @Mock
+    ProductNgramIndex productNgramIndex;
+
+    @Mock
+    ProductSuggestIndex productSuggestIndex;
+
+    @Mock
+    PriceDropNotifier priceDropNotifier;
+
+    @Mock
+    CartTotalCache cartTotalCache;
+
     @InjectMocks
     ProductService productService;
 
@@ -62,7 +101,8 @@ public class ProductServiceTest {
                 "product name",
                 10000,
                 "product picture",
-                "product description");
+                "product description",
+                100);
 
         email = "abc@gmail.com";
     }
@@ -86,6 +126,7 @@ public class ProductServiceTest {
         assertThat(productDto.getImageUrl()).isEqualTo(registeredProduct.getImageUrl());
         assertThat(productDto.getDescription()).isEqualTo(registeredProduct.getDescription());
         assertThat(seller.getEmail()).isEqualTo(registeredProduct.getSeller().getEmail());
+        verify(productRepository).save(argThat(savedProduct -> productDto.getStock().equals(savedProduct.getStock())));
     }
 
     @Test
@@ -101,7 +142,8 @@ public class ProductServiceTest {
                 "change product name",
                 100,
                 "change product picture",
-                "change product description"
+                "change product description",
+                null
         );
 
         // when
@@ -114,6 +156,33 @@ public class ProductServiceTest {
         assertThat(changeProduct.getImageUrl()).isEqualTo(updatedProduct.getImageUrl());
         assertThat(changeProduct.getDescription()).isEqualTo(updatedProduct.getDescription());
         assertThat(seller.getEmail()).isEqualTo(updatedProduct.getSeller().getEmail());
+        verify(priceDropNotifier, times(1)).priceChanged(productId, productDto.getPrice(), changeProduct.getPrice());
+        verify(cartTotalCache, times(1)).priceChanged(productId);
+    }
+
+    @Test
+    @DisplayName("가격이 그대로인 상품 수정은 장바구니 합계 캐시를 무효화하지 않는다.")
+    public void updateProduct_samePrice() {
+        // given
+        long productId = 1L;
+        Product product = productFixture(productId);
+
+        when(productRepository.findById(productId)).thenReturn(Optional.of(product));
+        when(userService.getUserByEmail(email)).thenReturn(seller);
+        ProductDto changeProduct = new ProductDto(
+                "change product name",
+                product.getPrice(),
+                "change product picture",
+                "change product description",
+                null
+        );
+
+        // when
+        productService.updateProduct(email, productId, changeProduct);
+
+        // then
+        verify(priceDropNotifier, never()).priceChanged(anyLong(), anyInt(), anyInt());
+        verify(cartTotalCache, never()).priceChanged(anyLong());
     }
 
     @Test
@@ -143,7 +212,55 @@ public class ProductServiceTest {
         Product foundProduct = productService.getProductById(productId);
 
         // then
-        assertThat(product).isEqualTo(foundProduct);
+        assertThat(foundProduct).usingRecursiveComparison().ignoringFields("seller").isEqualTo(product);
+        assertThat(foundProduct.getSeller().getId()).isEqualTo(seller.getId());
+        verify(productCache, times(1)).put(product);
+    }
+
+    @Test
+    @DisplayName("캐시에 상품이 있으면 DB를 조회하지 않는다.")
+    public void findProductTest_cacheHit() throws Exception {
+        // given
+        long productId = 1L;
+        Product product = productFixture(productId);
+        when(productCache.get(productId)).thenReturn(Optional.of(product));
+
+        // when
+        Product foundProduct = productService.getProductById(productId);
+
+        // then
+        assertThat(foundProduct).isEqualTo(product);
+        verify(productRepository, never()).findById(productId);
+    }
+
+    @Test
+    @DisplayName("여러 상품을 조회하면 캐시에 없는 상품만 한 번에 DB에서 조회한다.")
+    public void getProductsByIdsTest() {
+        // given
+        Product cachedProduct = productFixture(1L);
+        Product product = productFixture(2L);
+        when(productCache.getAll(Set.of(1L, 2L))).thenReturn(Map.of(1L, cachedProduct));
+        when(productRepository.findAllById(List.of(2L))).thenReturn(List.of(product));
+
+        // when
+        Map<Long, Product> products = productService.getProductsByIds(List.of(1L, 2L, 1L));
+
+        // then
+        assertThat(products).containsOnlyKeys(1L, 2L);
+        assertThat(products.get(2L)).usingRecursiveComparison().ignoringFields("seller").isEqualTo(product);
+        verify(productCache, times(1)).putAll(List.of(product));
+    }
+
+    @Test
+    @DisplayName("여러 상품 조회 시 없는 상품이 있으면 DataNotFoundException이 발생한다.")
+    public void getProductsByIdsTest_notFound() {
+        // given
+        Product product = productFixture(1L);
+        when(productRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(product));
+
+        // then
+        assertThrows(DataNotFoundException.class, () -> productService.getProductsByIds(List.of(1L, 2L)));
+        verify(productCache, times(1)).putAll(List.of(product));
     }
 
     @Test
@@ -153,18 +270,19 @@ public class ProductServiceTest {
         int page = 2;
         int size = 3;
         Pageable pageable = PageRequest.of(page - 1, size);
-        List<Product> productList = getProductListFixture();
-        Page<Product> expectedPage = new PageImpl<>(productList, pageable, productList.size());
+        List<ProductResponseDto> productList = getProductResponseListFixture().subList(3, 5);
 
-        when(productRepository.findAll(pageable)).thenReturn(expectedPage);
+        when(productRepository.findProductResponses(pageable)).thenReturn(productList);
 
         // When
-        Page<Product> resultPage = productService.findProducts(page, size);
+        Page<ProductResponseDto> resultPage = productService.findProducts(page, size);
 
         // Then
         assertThat(resultPage.getContent()).isEqualTo(productList);
+        assertThat(resultPage.getTotalElements()).isEqualTo(5L);
         assertThat(resultPage.getPageable().getPageNumber()).isEqualTo(page - 1);
         assertThat(resultPage.getPageable().getPageSize()).isEqualTo(size);
+        verify(productRepository, never()).findAll(any(Pageable.class));
     }
 
     @Test
@@ -176,18 +294,103 @@ public class ProductServiceTest {
         int size = 10;
         Pageable pageable = PageRequest.of(page - 1, size);
 
-        List<Product> expectedProducts = new ArrayList<>();
+        List<ProductResponseDto> expectedProducts = new ArrayList<>();
 
         when(productRepository.findByKeyword(keyword, pageable))
                 .thenReturn(expectedProducts);
 
         // when
-        List<Product> actualProducts = productService.searchProduct(keyword, page, size);
+        List<ProductResponseDto> actualProducts = productService.searchProduct(keyword, page, size);
 
         // then
         assertThat(expectedProducts).isEqualTo(actualProducts);
     }
 
+    @Test
+    @DisplayName("검색 색인이 준비되어 있으면 색인 순서대로 상품을 조회한다.")
+    public void searchProductTest_prefixIndex() {
+        // given
+        String keyword = "product";
+        int page = 1;
+        int size = 10;
+        List<ProductResponseDto> products = getProductResponseListFixture();
+
+        when(productPrefixIndex.isReady()).thenReturn(true);
+        when(productPrefixIndex.search(keyword, 0L, size)).thenReturn(Arrays.asList(3L, 1L));
+        when(productRepository.findProductResponsesByIds(Arrays.asList(3L, 1L))).thenReturn(Arrays.asList(products.get(0), products.get(2)));
+
+        // when
+        List<ProductResponseDto> actualProducts = productService.searchProduct(keyword, page, size);
+
+        // then
+        assertThat(actualProducts).extracting(ProductResponseDto::getId).containsExactly(3L, 1L);
+        verify(productRepository, never()).findByKeyword(any(), any());
+    }
+
+    @Test
+    @DisplayName("중간 일치 검색은 n-gram 색인의 결과 순서와 전체 개수를 사용한다.")
+    public void searchProductByInfixTest() {
+        // given
+        String keyword = "무선 이어폰";
+        int page = 1;
+        int size = 10;
+        List<ProductResponseDto> products = getProductResponseListFixture();
+
+        when(productNgramIndex.isReady()).thenReturn(true);
+        when(productNgramIndex.search(keyword, 0L, size))
+                .thenReturn(new ProductNgramIndex.SearchResult(Arrays.asList(2L, 5L), 2L));
+        when(productRepository.findProductResponsesByIds(Arrays.asList(2L, 5L))).thenReturn(Arrays.asList(products.get(4), products.get(1)));
+
+        // when
+        Page<ProductResponseDto> result = productService.searchProductByInfix(keyword, page, size);
+
+        // then
+        assertThat(result.getContent()).extracting(ProductResponseDto::getId).containsExactly(2L, 5L);
+        assertThat(result.getTotalElements()).isEqualTo(2L);
+        verify(productRepository, never()).findByContainingKeyword(any(), any());
+    }
+
+    @Test
+    @DisplayName("커서 조회는 size + 1 개를 읽어서 다음 페이지 여부를 판단하고, 커서의 id 이후부터 조회한다.")
+    public void findProductsAfterTest() {
+        // given
+        int size = 2;
+        List<ProductResponseDto> products = getProductResponseListFixture();
+        String after = Cursor.of(2L).encode();
+        when(productRepository.findAllAfter(2L, size + 1)).thenReturn(products.subList(2, 5));
+
+        // when
+        Slice<ProductResponseDto> productSlice = productService.findProductsAfter(after, size);
+
+        // then
+        assertThat(productSlice.getContent()).extracting(ProductResponseDto::getId).containsExactly(3L, 4L);
+        assertThat(productSlice.hasNext()).isTrue();
+        assertThat(Cursor.nextToken(productSlice, product -> Cursor.of(product.getId())))
+                .isEqualTo(Cursor.of(4L).encode());
+    }
+
+    @Test
+    @DisplayName("잘못된 커서 값은 InvalidCursorException 이 발생한다.")
+    public void findProductsAfterTest_invalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> productService.findProductsAfter("not-a-cursor", 10));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    @DisplayName("자동완성 색인이 준비되지 않았으면 DB 를 조회하지 않고 빈 목록을 반환한다.")
+    public void suggestProductsTest_indexNotReady() {
+        // given
+        when(productSuggestIndex.isReady()).thenReturn(false);
+
+        // when
+        List<ProductSuggestIndex.Suggestion> suggestions = productService.suggestProducts("무선", 10);
+
+        // then
+        assertThat(suggestions).isEmpty();
+        verify(productSuggestIndex, never()).suggest(any(), anyInt());
+        verifyNoInteractions(productRepository);
+    }
+
     @Test
     public void countSearchProductByKeywordTest() {
         // given
@@ -218,6 +421,79 @@ public class ProductServiceTest {
 
         // then
         verify(productRepository, times(1)).delete(eq(product));
+        verify(productCache, times(1)).evict(productId);
+    }
+
+    @Test
+    @DisplayName("좋아요는 DB 에 바로 반영하지 않고 카운터에 누적한다.")
+    public void updateLikeCountTest() {
+        // given
+        long productId = 1L;
+        Product product = productFixture(productId);
+        when(productCache.get(productId)).thenReturn(Optional.of(product));
+        when(userService.getUserByEmail(email)).thenReturn(seller);
+        when(productLikeRegistry.register(productId, seller.getId())).thenReturn(true);
+
+        // when
+        productService.updateLikeCount(productId, email);
+
+        // then
+        verify(productLikeCounter, times(1)).increase(productId);
+        verify(productRepository, never()).findById(productId);
+    }
+
+    @Test
+    @DisplayName("이미 좋아요를 누른 사용자의 요청은 좋아요 수를 늘리지 않는다.")
+    public void updateLikeCountTest_alreadyLiked() {
+        // given
+        long productId = 1L;
+        Product product = productFixture(productId);
+        when(productCache.get(productId)).thenReturn(Optional.of(product));
+        when(userService.getUserByEmail(email)).thenReturn(seller);
+        when(productLikeRegistry.register(productId, seller.getId())).thenReturn(false);
+
+        // when
+        productService.updateLikeCount(productId, email);
+
+        // then
+        verify(productLikeCounter, never()).increase(productId);
+    }
+
+    @Test
+    @DisplayName("좋아요 조회는 상품 조회와 같은 좋아요 수를 반환하고 비트맵으로는 누른 여부만 확인한다.")
+    public void getLikeTest() {
+        // given
+        long productId = 1L;
+        Product product = productFixture(productId);
+        product.setLikeCount(10);
+        when(userService.getUserByEmail(email)).thenReturn(seller);
+        when(productCache.get(productId)).thenReturn(Optional.of(product));
+        when(productLikeCounter.pending(productId)).thenReturn(3L);
+        when(productLikeRegistry.isLiked(productId, seller.getId())).thenReturn(true);
+
+        // when
+        LikeResponseDto like = productService.getLike(productId, email);
+
+        // then
+        assertThat(like.isLiked()).isTrue();
+        assertThat(like.getLikeCount()).isEqualTo(13);
+    }
+
+    @Test
+    @DisplayName("상품 조회 시 아직 반영되지 않은 좋아요 수를 더해서 반환한다.")
+    public void findProductTest_pendingLikes() {
+        // given
+        long productId = 1L;
+        Product product = productFixture(productId);
+        product.setLikeCount(10);
+        when(productCache.get(productId)).thenReturn(Optional.of(product));
+        when(productLikeCounter.pending(productId)).thenReturn(3L);
+
+        // when
+        Product foundProduct = productService.getProductById(productId);
+
+        // then
+        assertThat(foundProduct.getLikeCount()).isEqualTo(13);
     }
 
     private Product productFixture(long productId) {
@@ -240,4 +516,10 @@ public class ProductServiceTest {
 
         return Arrays.asList(product1, product2, product3, product4, product5);
     }
+
+    private List<ProductResponseDto> getProductResponseListFixture() {
+        return getProductListFixture().stream()
+                .map(Product::toProductResponseDto)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,49 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.domain.product.search.ProductSuggestIndex;
+import flab.commercemarket.domain.product.vo.ProductSearchDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductSuggestIndexTest {
+
+    ProductSuggestIndex productSuggestIndex;
+
+    @BeforeEach
+    void init() {
+        productSuggestIndex = new ProductSuggestIndex(2, 30);
+        productSuggestIndex.replaceAll(List.of(
+                new ProductSearchDocument(1L, "apple", "", 5),
+                new ProductSearchDocument(2L, "apricot", "", 10),
+                new ProductSearchDocument(3L, "avocado", "", 1)));
+    }
+
+    @Test
+    @DisplayName("좋아요 수 상위 상품부터 요청한 개수만큼 반환한다.")
+    public void suggestTest() {
+        // when
+        List<ProductSuggestIndex.Suggestion> suggestions = productSuggestIndex.suggest("Ap", 1);
+
+        // then
+        assertThat(suggestions).extracting(ProductSuggestIndex.Suggestion::getProductId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("요청 개수가 1 보다 작으면 1 개, top-k 보다 크면 top-k 개까지만 반환한다.")
+    public void suggestTest_clampSize() {
+        // when
+        List<ProductSuggestIndex.Suggestion> zero = productSuggestIndex.suggest("a", 0);
+        List<ProductSuggestIndex.Suggestion> negative = productSuggestIndex.suggest("a", -1);
+        List<ProductSuggestIndex.Suggestion> large = productSuggestIndex.suggest("a", 100);
+
+        // then
+        assertThat(zero).extracting(ProductSuggestIndex.Suggestion::getProductId).containsExactly(2L);
+        assertThat(negative).extracting(ProductSuggestIndex.Suggestion::getProductId).containsExactly(2L);
+        assertThat(large).extracting(ProductSuggestIndex.Suggestion::getProductId).containsExactly(2L, 1L);
+    }
+}
@@ -0,0 +1,108 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.domain.cart.repository.CartJdbcRepository;
+import flab.commercemarket.domain.cart.store.RedisCartStore;
+import flab.commercemarket.domain.cart.vo.CartKey;
+import flab.commercemarket.support.RedisTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+public class RedisCartStoreTest {
+
+    @Mock
+    CartJdbcRepository cartJdbcRepository;
+
+    RedisTemplate<String, Object> redisTemplate;
+    RedisCartStore redisCartStore;
+
+    // 다른 테스트나 데이터와 겹치지 않도록 실행마다 사용자 id 를 새로 정한다.
+    long userA;
+    long userB;
+    Map<CartKey, Integer> savedQuantities;
+
+    @BeforeEach
+    void init() {
+        redisTemplate = RedisTestSupport.redisTemplate();
+
+        userA = RedisTestSupport.randomId();
+        userB = userA + 1;
+        savedQuantities = new HashMap<>();
+
+        lenient().when(cartJdbcRepository.findQuantitiesByUserId(anyLong())).thenReturn(new HashMap<>());
+        redisCartStore = new RedisCartStore(redisTemplate, cartJdbcRepository, "redis", 60, 500, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisTemplate.delete(List.of("cart:" + userA, "cart:" + userB));
+        redisTemplate.opsForSet().remove("cart:dirty:parked", userB + ":1");
+    }
+
+    @Test
+    @DisplayName("반영에 계속 실패하는 상품은 따로 모아두고 나머지 상품은 반영한다.")
+    public void flushTest_parkFailedKey() {
+        // given
+        CartKey poisonKey = new CartKey(userB, 1L);
+        doAnswer(invocation -> {
+            Map<CartKey, Integer> quantities = invocation.getArgument(0);
+            if (quantities.containsKey(poisonKey)) {
+                throw new DataIntegrityViolationException("poison");
+            }
+            savedQuantities.putAll(quantities);
+            return null;
+        }).when(cartJdbcRepository).saveQuantities(any(), any());
+
+        redisCartStore.add(userA, 1L, 2);
+        redisCartStore.add(userB, 1L, 3);
+
+        // when
+        redisCartStore.flush();
+
+        // then
+        assertThat(savedQuantities).containsEntry(new CartKey(userA, 1L), 2).doesNotContainKey(poisonKey);
+        assertThat(redisTemplate.opsForSet().isMember("cart:dirty:parked", userB + ":1")).isTrue();
+        assertThat(redisTemplate.opsForSet().isMember("cart:dirty", userB + ":1")).isFalse();
+    }
+
+    @Test
+    @DisplayName("다른 노드가 꺼낸 뒤 반영하지 못한 상품은 점유 시간이 지나면 다시 반영한다.")
+    public void flushTest_reclaimExpiredClaim() {
+        // given
+        List<Map<CartKey, Integer>> saved = new ArrayList<>();
+        doAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return null;
+        }).when(cartJdbcRepository).saveQuantities(any(), any());
+
+        redisCartStore.add(userA, 1L, 2);
+        String member = userA + ":1";
+        redisTemplate.opsForSet().remove("cart:dirty", member);
+        redisTemplate.opsForZSet().add("cart:dirty:claimed", member, System.currentTimeMillis() - 120_000);
+
+        // when
+        redisCartStore.flush();
+
+        // then
+        assertThat(saved).anySatisfy(quantities -> assertThat(quantities).containsEntry(new CartKey(userA, 1L), 2));
+        assertThat(redisTemplate.opsForZSet().score("cart:dirty:claimed", member)).isNull();
+    }
+}
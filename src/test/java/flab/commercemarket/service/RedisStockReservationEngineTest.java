@@ -0,0 +1,249 @@
+package flab.commercemarket.service;
+
+import flab.commercemarket.common.exception.OutOfStockException;
+import flab.commercemarket.domain.product.repository.ProductJdbcRepository;
+import flab.commercemarket.domain.stock.RedisStockReservationEngine;
+import flab.commercemarket.support.RedisTestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class RedisStockReservationEngineTest {
+
+    @Mock
+    ProductJdbcRepository productJdbcRepository;
+
+    RedisTemplate<String, Object> redisTemplate;
+    RedisStockReservationEngine engine;
+
+    // 다른 테스트나 데이터와 겹치지 않도록 실행마다 상품 id 를 새로 정한다.
+    long productA;
+    long productB;
+    Map<Long, Integer> stocks;
+
+    @BeforeEach
+    void init() {
+        redisTemplate = RedisTestSupport.redisTemplate();
+
+        productA = RedisTestSupport.randomId();
+        productB = productA + 1;
+        stocks = new HashMap<>();
+
+        lenient().when(productJdbcRepository.findStocks(any())).thenAnswer(invocation -> {
+            Map<Long, Integer> found = new HashMap<>();
+            invocation.<Collection<Long>>getArgument(0).forEach(productId -> {
+                if (stocks.containsKey(productId)) {
+                    found.put(productId, stocks.get(productId));
+                }
+            });
+            return found;
+        });
+
+        engine = new RedisStockReservationEngine(redisTemplate, productJdbcRepository, 60_000, 24);
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisTemplate.delete(List.of("stock:" + productA, "stock:" + productB));
+        redisTemplate.opsForHash().delete("stock:pending", String.valueOf(productA), String.valueOf(productB));
+    }
+
+    @Test
+    @DisplayName("동시에 주문이 몰려도 재고보다 많이 팔리지 않는다.")
+    public void reserveTest_concurrent() throws Exception {
+        // given
+        stocks.put(productA, 100);
+        stocks.put(productB, 50);
+
+        int orderCount = 4000;
+        int threadCount = 64;
+        AtomicInteger soldA = new AtomicInteger();
+        AtomicInteger soldB = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(orderCount);
+
+        // when: 절반은 두 상품을 함께, 절반은 A 만 주문한다.
+        for (int i = 0; i < orderCount; i++) {
+            boolean bundle = i % 2 == 0;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    if (bundle) {
+                        engine.reserve(Map.of(productA, 1, productB, 1));
+                        soldA.incrementAndGet();
+                        soldB.incrementAndGet();
+                    } else {
+                        engine.reserve(Map.of(productA, 1));
+                        soldA.incrementAndGet();
+                    }
+                } catch (OutOfStockException e) {
+                    rejected.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(done.await(60, TimeUnit.SECONDS)).isTrue();
+        executor.shutdown();
+
+        // then
+        int remainingA = remainingStock(productA);
+        int remainingB = remainingStock(productB);
+        assertThat(remainingA).isZero();
+        assertThat(remainingB).isGreaterThanOrEqualTo(0);
+        assertThat(soldA.get()).isEqualTo(100);
+        assertThat(soldB.get()).isEqualTo(50 - remainingB);
+        // 성공한 주문은 모두 A 를 하나씩 샀다.
+        assertThat(soldA.get() + rejected.get()).isEqualTo(orderCount);
+    }
+
+    @Test
+    @DisplayName("한 상품이라도 부족하면 어떤 상품도 예약하지 않는다.")
+    public void reserveTest_allOrNothing() {
+        // given
+        stocks.put(productA, 1);
+        stocks.put(productB, 0);
+
+        // then
+        OutOfStockException exception = assertThrows(OutOfStockException.class,
+                () -> engine.reserve(Map.of(productA, 1, productB, 1)));
+        assertThat(exception.getProductId()).isEqualTo(productB);
+        assertThat(remainingStock(productA)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("반환한 재고는 다시 예약할 수 있다.")
+    public void releaseTest() {
+        // given
+        stocks.put(productA, 1);
+        engine.reserve(Map.of(productA, 1));
+
+        // when
+        engine.release(Map.of(productA, 1));
+
+        // then
+        engine.reserve(Map.of(productA, 1));
+        assertThat(remainingStock(productA)).isZero();
+    }
+
+    @Test
+    @DisplayName("재고를 관리하지 않는 상품은 수량과 관계없이 예약된다.")
+    public void reserveTest_unlimited() {
+        // given
+        stocks.put(productA, null);
+
+        // when
+        engine.reserve(Map.of(productA, 1_000_000));
+
+        // then
+        assertThat(remainingStock(productA)).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("키를 다시 채울 때 다른 노드가 예약하고 아직 DB 에 반영하지 않은 수량도 뺀다.")
+    public void loadTest_pendingOnOtherNode() {
+        // given
+        stocks.put(productA, 10);
+        engine.reserve(Map.of(productA, 3));
+        redisTemplate.delete("stock:" + productA);
+
+        RedisStockReservationEngine otherNode = new RedisStockReservationEngine(redisTemplate, productJdbcRepository, 60_000, 24);
+
+        // when
+        otherNode.reserve(Map.of(productA, 1));
+
+        // then
+        assertThat(remainingStock(productA)).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("반영 대기량을 묶음으로 꺼내 DB 에 반영하고 묶음을 지운다.")
+    public void flushTest() {
+        // given
+        stocks.put(productA, 10);
+        engine.reserve(Map.of(productA, 3));
+        assertThat(redisTemplate.opsForHash().get("stock:pending", String.valueOf(productA))).isEqualTo("-3");
+        when(productJdbcRepository.increaseStocksOnce(anyString(), any())).thenReturn(true);
+
+        // when
+        engine.flush();
+
+        // then
+        ArgumentCaptor<String> batchId = ArgumentCaptor.forClass(String.class);
+        verify(productJdbcRepository).increaseStocksOnce(batchId.capture(), argThat(deltas -> Long.valueOf(-3L).equals(deltas.get(productA))));
+        assertThat(redisTemplate.opsForHash().get("stock:pending", String.valueOf(productA))).isNull();
+        assertThat(redisTemplate.opsForZSet().score("stock:pending:batches", batchId.getValue())).isNull();
+        assertThat(redisTemplate.hasKey("stock:pending:batch:" + batchId.getValue())).isFalse();
+    }
+
+    @Test
+    @DisplayName("반영하지 못한 묶음은 키를 다시 채울 때도 빼고, 점유 시간이 지나면 다른 노드가 같은 batchId 로 다시 반영한다.")
+    public void flushTest_reclaimByOtherNode() {
+        // given
+        stocks.put(productA, 10);
+        engine.reserve(Map.of(productA, 3));
+        when(productJdbcRepository.increaseStocksOnce(anyString(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(true);
+        engine.flush();
+
+        ArgumentCaptor<String> batchId = ArgumentCaptor.forClass(String.class);
+        verify(productJdbcRepository).increaseStocksOnce(batchId.capture(), any());
+        String failedBatchId = batchId.getValue();
+        assertThat(redisTemplate.opsForZSet().score("stock:pending:batches", failedBatchId)).isNotNull();
+
+        // 반영 중인 묶음의 변화량도 키를 채울 때 뺀다.
+        redisTemplate.delete("stock:" + productA);
+        engine.reserve(Map.of(productA, 1));
+        assertThat(remainingStock(productA)).isEqualTo(6);
+
+        // when: 점유 시간을 0 으로 둔 다른 노드가 반영한다. 이전 실행이 남긴 묶음이 있으면 그것부터 반영할 수 있다.
+        RedisStockReservationEngine otherNode = new RedisStockReservationEngine(redisTemplate, productJdbcRepository, 0, 24);
+        for (int i = 0; i < 10 && redisTemplate.opsForZSet().score("stock:pending:batches", failedBatchId) != null; i++) {
+            otherNode.flush();
+        }
+
+        // then
+        verify(productJdbcRepository, times(2)).increaseStocksOnce(argThat(failedBatchId::equals),
+                argThat(deltas -> Long.valueOf(-3L).equals(deltas.get(productA))));
+        assertThat(redisTemplate.opsForZSet().score("stock:pending:batches", failedBatchId)).isNull();
+    }
+
+    private int remainingStock(long productId) {
+        return Integer.parseInt((String) redisTemplate.opsForValue().get("stock:" + productId));
+    }
+}
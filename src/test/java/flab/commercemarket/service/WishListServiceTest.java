@@ -1,6 +1,9 @@
 package flab.commercemarket.service;
 
+import flab.commercemarket.common.bloom.UserItemBloomFilter;
+import flab.commercemarket.common.count.UserCountCache;
 import flab.commercemarket.common.exception.DataNotFoundException;
+import flab.commercemarket.common.exception.DuplicateDataException;
 import flab.commercemarket.common.exception.ForbiddenException;
 import flab.commercemarket.domain.cart.vo.Cart;
 import flab.commercemarket.domain.product.ProductService;
@@ -9,9 +12,11 @@ import flab.commercemarket.domain.user.UserService;
 import flab.commercemarket.domain.user.vo.Role;
 import flab.commercemarket.domain.user.vo.User;
 import flab.commercemarket.domain.wishlist.WishListService;
+import flab.commercemarket.domain.wishlist.index.WishListUserIndex;
 import flab.commercemarket.domain.wishlist.repository.WishListRepository;
 import flab.commercemarket.domain.wishlist.vo.WishList;
 import org.assertj.core.api.Assertions;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,19 +24,23 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.awt.*;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,6 +54,15 @@ public class WishListServiceTest {
     @Mock
     ProductService productService;
 
+    @Mock
+    UserCountCache userCountCache;
+
+    @Mock
+    UserItemBloomFilter userItemBloomFilter;
+
+    @Mock
+    WishListUserIndex wishListUserIndex;
+
     @InjectMocks
     WishListService wishListService;
 
@@ -67,10 +85,9 @@ public class WishListServiceTest {
         // given
         when(userService.getUserByEmail(email)).thenReturn(user);
         when(productService.getProductById(productId)).thenReturn(product);
-        when(wishListRepository.getWishListItemByUserId(userId)).thenReturn(new ArrayList<>());
 
         WishList wishList = WishList.builder().user(user).product(product).build();
-        when(wishListRepository.save(any(WishList.class))).thenReturn(wishList);
+        when(wishListRepository.saveAndFlush(any(WishList.class))).thenReturn(wishList);
 
         // when
         WishList result = wishListService.registerWishList(email, productId);
@@ -78,6 +95,24 @@ public class WishListServiceTest {
         // then
         assertThat(userId).isEqualTo(result.getUserId());
         assertThat(productId).isEqualTo(result.getProduct().getId());
+        // 필터가 없다고 하면 DB 로 중복을 확인하지 않는다.
+        verify(wishListRepository, never()).existsByUserIdAndProductId(anyLong(), anyLong());
+        verify(userItemBloomFilter, times(1)).add("wish", userId, productId);
+        verify(wishListUserIndex, times(1)).add(productId, userId);
+    }
+
+    @Test
+    @DisplayName("이미 찜한 상품을 등록하면 유니크 키 위반을 DuplicateDataException으로 바꾼다.")
+    public void registerWishListTest_duplicate() {
+        // given
+        when(userService.getUserByEmail(email)).thenReturn(user);
+        when(productService.getProductById(productId)).thenReturn(product);
+        when(wishListRepository.saveAndFlush(any(WishList.class))).thenThrow(new DataIntegrityViolationException("duplicate",
+                new ConstraintViolationException("duplicate", new SQLException(), "wish_list." + WishList.UNIQUE_USER_PRODUCT)));
+
+        // then
+        assertThrows(DuplicateDataException.class, () -> wishListService.registerWishList(email, productId));
+        verify(userCountCache, never()).increment(any(), any(), anyLong());
     }
 
     @Test
@@ -131,6 +166,8 @@ public class WishListServiceTest {
         List<WishList> wishLists = wishListsFixture();
         when(userService.getUserByEmail(email)).thenReturn(user);
         when(wishListRepository.countByUserId(userId)).thenReturn((long) wishLists.size());
+        when(userCountCache.get(eq("wish"), eq(email), any()))
+                .thenAnswer(invocation -> invocation.<LongSupplier>getArgument(2).getAsLong());
 
         // when
         long result = wishListService.countWishListByUserId(email);
@@ -152,6 +189,22 @@ public class WishListServiceTest {
 
         // then
         verify(wishListRepository, times(1)).delete(wishList);
+        verify(userCountCache, times(1)).increment("wish", email, -1);
+        verify(wishListUserIndex, times(1)).remove(wishList.getProduct().getId(), userId);
+    }
+
+    @Test
+    @DisplayName("상품의 찜 수는 역색인에서 조회한다.")
+    public void countWishesByProductIdTest() {
+        // given
+        when(wishListUserIndex.count(productId)).thenReturn(3L);
+
+        // when
+        long result = wishListService.countWishesByProductId(productId);
+
+        // then
+        assertThat(result).isEqualTo(3L);
+        verify(wishListRepository, never()).countByProductId(anyLong());
     }
 
     @Test
@@ -0,0 +1,60 @@
+package flab.commercemarket.support;
+
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Redis 가 필요한 테스트가 함께 쓰는 RedisTemplate. 애플리케이션의 RedisConfig 와 같이 모두 문자열로 직렬화한다.
+ * redis.host 시스템 프로퍼티가 있으면 그 Redis(redis.port, 기본 6379)를, 없으면 테스트 JVM 마다 컨테이너 하나를 띄워서 쓴다.
+ * 컨테이너는 JVM 이 끝날 때 Testcontainers 가 정리한다.
+ */
+public final class RedisTestSupport {
+
+    private static final DockerImageName REDIS_IMAGE = DockerImageName.parse("redis:7.0-alpine");
+    private static final int REDIS_PORT = 6379;
+
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    private RedisTestSupport() {
+    }
+
+    public static synchronized RedisTemplate<String, Object> redisTemplate() {
+        if (redisTemplate == null) {
+            redisTemplate = createRedisTemplate();
+        }
+        return redisTemplate;
+    }
+
+    // 다른 테스트나 남아 있는 데이터와 겹치지 않도록 실행마다 새로 정하는 id
+    public static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1_000_000_000L, Long.MAX_VALUE / 2);
+    }
+
+    private static RedisTemplate<String, Object> createRedisTemplate() {
+        String host = System.getProperty("redis.host");
+        int port = Integer.getInteger("redis.port", REDIS_PORT);
+        if (host == null) {
+            GenericContainer<?> container = new GenericContainer<>(REDIS_IMAGE).withExposedPorts(REDIS_PORT);
+            container.start();
+            host = container.getHost();
+            port = container.getMappedPort(REDIS_PORT);
+        }
+
+        LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(host, port);
+        connectionFactory.afterPropertiesSet();
+
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setHashValueSerializer(new StringRedisSerializer());
+        template.setConnectionFactory(connectionFactory);
+        template.afterPropertiesSet();
+        return template;
+    }
+}